@@ -0,0 +1,33 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the JMH benchmarks with the GC profiler, so every result comes with
+ * the bytes allocated per operation next to its time. The benchmarks are
+ * kept apart from the program, in bench, and need jmh-core and the
+ * jmh-generator-annprocess annotation processor on the class path when
+ * compiled together with src. It is run from the root of the repository
+ * as follows:<br>
+ * <br>
+ *     java benchmark.Benchmarks [regex]<br>
+ * <br>
+ * where the optional regex picks the benchmarks to run, all of them by
+ * default.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class Benchmarks {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0] : "benchmark\\..*Benchmark")
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import backtracking.Configuration;
+import model.LasersModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.FileNotFoundException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The operations of LasersModel the searches and the UIs call most, on
+ * every test safe. The solved safe is used where the answer depends on
+ * the board being full: verify then walks the whole grid without stopping
+ * early, and isGoal passes every check. isValid and isGoal only read
+ * counters the model keeps, so they take the same time on every safe.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+
+    @Param({"4x4", "7x7", "8x8", "10x8", "14x14"})
+    public String safe;
+
+    private LasersModel model;
+    private LasersModel solved;
+    private int row;
+    private int col;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        model = Safes.load(safe);
+        solved = Safes.solved(safe);
+        int[] cell = Safes.freeCell(model);
+        row = cell[0];
+        col = cell[1];
+    }
+
+    @Benchmark
+    public LasersModel copy() {
+        return new LasersModel(solved);
+    }
+
+    @Benchmark
+    public LasersModel updateBeams() {
+        solved.updateBeams();
+        return solved;
+    }
+
+    @Benchmark
+    public boolean isValid() {
+        return solved.isValid();
+    }
+
+    @Benchmark
+    public boolean isGoal() {
+        return solved.isGoal();
+    }
+
+    @Benchmark
+    public Collection<Configuration> getSuccessors() {
+        return model.getSuccessors();
+    }
+
+    @Benchmark
+    public void verify() {
+        solved.verify();
+    }
+
+    @Benchmark
+    public void addRemove(Blackhole bh) {
+        bh.consume(model.add(row, col));
+        model.remove(row, col);
+    }
+}
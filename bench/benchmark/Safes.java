@@ -0,0 +1,63 @@
+package benchmark;
+
+import backtracking.BacktrackingSolver;
+import model.LasersModel;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+
+/**
+ * Loads the safes the benchmarks run on. They are read from the tests
+ * directory of the repository, or from the directory named by the
+ * lasers.tests system property.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+final class Safes {
+
+    private Safes() {
+    }
+
+    /**
+     * Reads a safe.
+     *
+     * @param name the size of the safe, 4x4 for tests/4x4safe.txt
+     * @return the safe, as a fresh model
+     * @throws FileNotFoundException if there is no such safe
+     */
+    static LasersModel load(String name) throws FileNotFoundException {
+        String dir = System.getProperty("lasers.tests", "tests");
+        return new LasersModel(new File(dir, name + "safe.txt").getPath());
+    }
+
+    /**
+     * Reads a safe and solves it.
+     *
+     * @param name the size of the safe, 4x4 for tests/4x4safe.txt
+     * @return the solved safe
+     * @throws FileNotFoundException if there is no such safe
+     */
+    static LasersModel solved(String name) throws FileNotFoundException {
+        return (LasersModel) new BacktrackingSolver(false).solve(load(name))
+                .orElseThrow(() -> new IllegalStateException(name + " has no solution"));
+    }
+
+    /**
+     * The first cell of a safe a laser can be added to and removed from
+     * again.
+     *
+     * @param model the safe
+     * @return the cell, as {row, col}
+     */
+    static int[] freeCell(LasersModel model) {
+        for (int r = 0; r < model.getHeight(); r++) {
+            for (int c = 0; c < model.getWidth(); c++) {
+                char grid = model.getGrid(r, c);
+                if (grid == LasersModel.EMPTY || grid == LasersModel.BEAM) {
+                    return new int[]{r, c};
+                }
+            }
+        }
+        throw new IllegalStateException("The safe has no free cell");
+    }
+}
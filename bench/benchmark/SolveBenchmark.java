@@ -0,0 +1,63 @@
+package benchmark;
+
+import backtracking.Backtracker;
+import backtracking.Configuration;
+import backtracking.MostConstrainedStrategy;
+import model.LasersModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.FileNotFoundException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full solves of every test safe: the classic search through successors,
+ * and the in-place search in cursor order and fail-first. Every solve
+ * starts from a fresh copy of the safe, which is part of the measurement.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolveBenchmark {
+
+    @Param({"4x4", "7x7", "8x8", "10x8", "14x14"})
+    public String safe;
+
+    private LasersModel model;
+
+    @Setup(Level.Trial)
+    public void setUp() throws FileNotFoundException {
+        model = Safes.load(safe);
+    }
+
+    @Benchmark
+    public Optional<Configuration> solve() {
+        return new Backtracker(false).solve(new LasersModel(model));
+    }
+
+    @Benchmark
+    public Optional<Configuration> solveInPlace() {
+        return new Backtracker(false).solveInPlace(new LasersModel(model));
+    }
+
+    @Benchmark
+    public Optional<Configuration> solveFailFirst() {
+        return new Backtracker(false, new MostConstrainedStrategy()).solveInPlace(new LasersModel(model));
+    }
+}
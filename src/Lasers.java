@@ -13,7 +13,10 @@ import java.io.FileNotFoundException;
  * 1. Plain text UI mode: <br>
  *     java Lasers ptui safe-file [input]<br>
  * <br>
- * Here, the input file of commands from the file is optional<br>
+ * Here, the input file of commands from the file is optional. In ansi
+ * mode the plain text UI keeps the safe at the top of the terminal and
+ * only redraws the rows that changed:<br>
+ *     java Lasers ansi safe-file [input]<br>
  * <br>
  * 2. JavaFX GUI mode:<br>
  *     java Lasers gui safe-file<br>
@@ -26,7 +29,7 @@ public class Lasers {
      * Displays the usage message and exits the program.
      */
     private static void usage() {
-        System.err.println("Usage: java Lasers (gui | ptui) safe-file [input]");
+        System.err.println("Usage: java Lasers (gui | ptui | ansi) safe-file [input]");
         System.exit(-1);
     }
 
@@ -65,8 +68,9 @@ public class Lasers {
                     break;
 
                 case PTUI:
+                case ANSI:
                     // create the "view" first
-                    LasersPTUI ptui = new LasersPTUI(safeFile);
+                    LasersPTUI ptui = new LasersPTUI(safeFile, mode == UIMode.ANSI);
                     // now create the "controller"
                     ControllerPTUI ctrlr = new ControllerPTUI(ptui.getModel());
                     // now pass control to the run method of the controller
@@ -82,9 +86,9 @@ public class Lasers {
     }
 
     /**
-     * The 2 modes are GUI and PTUI
+     * The 3 modes are GUI, PTUI and the PTUI redrawing in place with ANSI escapes
      */
     public enum UIMode {
-        GUI, PTUI, UNKNOWN
+        GUI, PTUI, ANSI, UNKNOWN
     }
 }
\ No newline at end of file
@@ -1,12 +1,27 @@
 package backtracking;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * This class represents the classic recursive backtracking algorithm.
+ * This class represents the classic backtracking algorithm.
  * It has a solver that can take a valid configuration and return a
  * solution, if one exists.
  * <p>
+ * The searches keep their own stack of frames instead of recursing, one
+ * frame per level of the tree, so the depth of a search is limited by the
+ * heap and not by the thread stack.
+ * <p>
+ * Interrupting the thread a search runs on stops it: it reports no
+ * solution, leaves the interrupt flag set and leaves an in-place
+ * configuration as it was passed in.
+ * <p>
  * This file comes from the backtracking lab. It should be useful
  * in this project. A second method has been added that you should
  * implement.
@@ -19,13 +34,68 @@ public class Backtracker {
 
     private boolean debug;
 
+    /**
+     * Picks the decision solveInPlace branches on, null to leave it to the
+     * configuration
+     */
+    private BranchingStrategy strategy;
+
+    /**
+     * Remembers the configurations found to have no solution, null to not
+     * remember any
+     */
+    private TranspositionTable table;
+
+    /**
+     * Where the searches report what they do
+     */
+    private final SolverMetrics metrics = SolverMetrics.getInstance();
+
+    /**
+     * The number of configurations this backtracker has expanded
+     */
+    private long nodes;
+
+    /**
+     * The number of frames the successor search starts out with
+     */
+    private static final int INITIAL_FRAMES = 64;
+
     /**
      * Initialize a new backtracker.
      *
      * @param debug Is debugging output enabled?
      */
     public Backtracker(boolean debug) {
+        this(debug, null);
+    }
+
+    /**
+     * Initialize a new backtracker that branches in the order given by a
+     * strategy when searching in place.
+     *
+     * @param debug    Is debugging output enabled?
+     * @param strategy The branching strategy, or null for the order of the
+     *                 configuration itself
+     */
+    public Backtracker(boolean debug, BranchingStrategy strategy) {
+        this(debug, strategy, null);
+    }
+
+    /**
+     * Initialize a new backtracker that skips configurations a
+     * transposition table already knows to have no solution. Only
+     * configurations implementing HashedConfiguration are looked up.
+     *
+     * @param debug    Is debugging output enabled?
+     * @param strategy The branching strategy, or null for the order of the
+     *                 configuration itself
+     * @param table    The transposition table, or null for none
+     */
+    public Backtracker(boolean debug, BranchingStrategy strategy, TranspositionTable table) {
         this.debug = debug;
+        this.strategy = strategy;
+        this.table = table;
         if (this.debug) {
             System.out.println("Backtracker debugging enabled...");
         }
@@ -51,24 +121,369 @@ public class Backtracker {
      * @return A solution config, or null if no solution
      */
     public Optional<Configuration> solve(Configuration config) {
+        long start = metrics.solveStarted();
+        try {
+            return searchSuccessors(config);
+        } finally {
+            metrics.solveFinished(start);
+        }
+    }
+
+    /**
+     * The search of solve, through the successors of every configuration.
+     */
+    private Optional<Configuration> searchSuccessors(Configuration config) {
         debugPrint("Current config", config);
         if (config.isGoal()) {
             debugPrint("\tGoal config", config);
             return Optional.of(config);
-        } else {
-            for (Configuration child : config.getSuccessors()) {
-                if (child.isValid()) {
-                    debugPrint("\tValid successor", child);
-                    Optional<Configuration> sol = solve(child);
-                    if (sol.isPresent()) {
-                        return sol;
+        } else if (isKnownFailure(config)) {
+            debugPrint("\tKnown dead end", config);
+            return Optional.empty();
+        }
+
+        // frame i holds the successors of the configuration at depth i still
+        // to be tried, and that configuration if the table needs it
+        @SuppressWarnings("unchecked")
+        Iterator<Configuration>[] successors = (Iterator<Configuration>[]) new Iterator<?>[INITIAL_FRAMES];
+        Configuration[] configs = new Configuration[INITIAL_FRAMES];
+        int top = 0;
+        successors[0] = expand(config, 0);
+        configs[0] = table == null ? null : config;
+        while (top >= 0) {
+            if (Thread.currentThread().isInterrupted()) {
+                return Optional.empty();
+            }
+            if (!successors[top].hasNext()) {
+                // implicit backtracking happens here
+                if (configs[top] != null) {
+                    storeFailure(configs[top], top);
+                }
+                successors[top] = null;
+                configs[top] = null;
+                top--;
+                continue;
+            }
+            Configuration child = successors[top].next();
+            if (!child.isValid()) {
+                debugPrint("\tInvalid successor", child);
+                metrics.invalidSuccessor(child.pruneReason());
+                continue;
+            }
+            debugPrint("\tValid successor", child);
+            metrics.validSuccessor();
+            debugPrint("Current config", child);
+            if (child.isGoal()) {
+                debugPrint("\tGoal config", child);
+                return Optional.of(child);
+            } else if (isKnownFailure(child)) {
+                debugPrint("\tKnown dead end", child);
+                continue;
+            }
+            if (++top == successors.length) {
+                successors = Arrays.copyOf(successors, 2 * top);
+                configs = Arrays.copyOf(configs, 2 * top);
+            }
+            successors[top] = expand(child, top);
+            configs[top] = table == null ? null : child;
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Try find a solution, if one exists, by searching a single configuration
+     * in place. Every choice is made on the configuration and reverted after
+     * its subtree has been explored, so no copies are created except for the
+     * solution itself. The configuration is left as it was passed in.
+     *
+     * @param config A valid configuration
+     * @return A solution config, or empty if no solution
+     */
+    public Optional<Configuration> solveInPlace(ReversibleConfiguration config) {
+        long start = metrics.solveStarted();
+        try {
+            Search search = new Search(config);
+            if (!search.advance()) {
+                return Optional.empty();
+            }
+            Configuration solution = config.snapshot();
+            search.unwind();
+            return Optional.of(solution);
+        } finally {
+            metrics.solveFinished(start);
+        }
+    }
+
+    /**
+     * Lists every solution below a configuration, lazily and in the order
+     * solveInPlace would find them. The search runs on a snapshot of the
+     * configuration and only goes as far as the stream asks, so a limited
+     * stream stops the search early. Every solution is a snapshot of its
+     * own.
+     *
+     * @param config A valid configuration, which is not changed
+     * @return the solutions
+     */
+    public Stream<Configuration> solutions(ReversibleConfiguration config) {
+        Search search = new Search(config.snapshot());
+        Iterator<Configuration> iterator = new Iterator<Configuration>() {
+            /**
+             * Whether the search stands on a solution not handed out yet
+             */
+            private boolean pending;
+
+            @Override
+            public boolean hasNext() {
+                if (!pending) {
+                    pending = search.advance();
+                }
+                return pending;
+            }
+
+            @Override
+            public Configuration next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                pending = false;
+                return search.config.snapshot();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Counts the solutions below a configuration without copying any of
+     * them. Checking that a puzzle has exactly one solution only needs
+     * count(config, 2) == 1.
+     *
+     * @param config A valid configuration, which is not changed
+     * @param atMost stop searching once this many solutions have been found
+     * @return the number of solutions, at most atMost
+     */
+    public long count(ReversibleConfiguration config, long atMost) {
+        long start = metrics.solveStarted();
+        try {
+            Search search = new Search(config.snapshot());
+            long count = 0;
+            while (count < atMost && search.advance()) {
+                count++;
+            }
+            return count;
+        } finally {
+            metrics.solveFinished(start);
+        }
+    }
+
+    /**
+     * How much work the searches of this backtracker have done so far.
+     *
+     * @return the number of configurations expanded
+     */
+    public long getNodesExpanded() {
+        return nodes;
+    }
+
+    /**
+     * Starts on the successors of a configuration, counting it as expanded.
+     *
+     * @param config the configuration
+     * @param depth  how deep in the search it is
+     * @return its successors
+     */
+    private Iterator<Configuration> expand(Configuration config, int depth) {
+        Iterator<Configuration> successors = config.successors();
+        nodes++;
+        metrics.expanded();
+        metrics.reached(depth);
+        if (!successors.hasNext()) {
+            metrics.deadEnd();
+        }
+        return successors;
+    }
+
+    /**
+     * Looks a configuration up in the transposition table.
+     *
+     * @param config the configuration about to be expanded
+     * @return true if it is known to have no solution below it
+     */
+    private boolean isKnownFailure(Configuration config) {
+        if (table != null && config instanceof HashedConfiguration
+                && table.isFailed(((HashedConfiguration) config).hash())) {
+            metrics.tableCutoff();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records in the transposition table that a configuration has no
+     * solution below it.
+     *
+     * @param config the configuration that was fully searched
+     * @param depth  how deep in the search it is
+     */
+    private void storeFailure(Configuration config, int depth) {
+        if (table != null && config instanceof HashedConfiguration) {
+            table.storeFailed(((HashedConfiguration) config).hash(), depth);
+        }
+    }
+
+    /**
+     * A search in place that can stop at every solution and pick up where
+     * it left off. Instead of recursing it keeps one frame per level in
+     * flat arrays: the decision branched on, its number of choices and the
+     * next choice to try. The arrays are sized for one frame per decision
+     * up front, so a search does not allocate as it goes deeper.
+     */
+    private class Search {
+
+        private final ReversibleConfiguration config;
+
+        private int[] decisions;
+        private int[] choices;
+        private int[] next;
+        /**
+         * The number of solutions found when each frame was opened, to tell
+         * the frames without a solution below them
+         */
+        private long[] found;
+        private int frames;
+
+        private long solutions;
+        private boolean started;
+        /**
+         * Whether the search stands on a solution it has made but not yet
+         * reverted
+         */
+        private boolean atGoal;
+
+        Search(ReversibleConfiguration config) {
+            this.config = config;
+            int capacity = config.decisionCount() + 1;
+            decisions = new int[capacity];
+            choices = new int[capacity];
+            next = new int[capacity];
+            found = new long[capacity];
+        }
+
+        /**
+         * Searches on to the next solution.
+         *
+         * @return true if the configuration is now a solution, false once
+         * the search is done
+         */
+        boolean advance() {
+            if (!started) {
+                started = true;
+                debugPrint("Current config", config);
+                if (config.isGoal()) {
+                    debugPrint("\tGoal config", config);
+                    solutions++;
+                    return true;
+                }
+                if (isKnownFailure(config)) {
+                    debugPrint("\tKnown dead end", config);
+                    return false;
+                }
+                open();
+            } else if (atGoal) {
+                atGoal = false;
+                config.unmake();
+            }
+            while (frames > 0) {
+                if (Thread.currentThread().isInterrupted()) {
+                    unwind();
+                    return false;
+                }
+                int top = frames - 1;
+                if (next[top] == choices[top]) {
+                    if (found[top] == solutions) {
+                        storeFailure(config, top);
                     }
+                    frames--;
+                    if (frames > 0) {
+                        config.unmake();
+                    }
+                    continue;
+                }
+                int choice = next[top]++;
+                if (strategy == null) {
+                    config.make(choice);
                 } else {
-                    debugPrint("\tInvalid successor", child);
+                    config.make(decisions[top], choice);
+                }
+                if (!config.isValid()) {
+                    debugPrint("\tInvalid successor", config);
+                    metrics.invalidSuccessor(config.pruneReason());
+                    config.unmake();
+                    continue;
+                }
+                debugPrint("\tValid successor", config);
+                metrics.validSuccessor();
+                if (config.isGoal()) {
+                    debugPrint("\tGoal config", config);
+                    solutions++;
+                    atGoal = true;
+                    return true;
                 }
+                if (isKnownFailure(config)) {
+                    debugPrint("\tKnown dead end", config);
+                    config.unmake();
+                    continue;
+                }
+                open();
             }
-            // implicit backtracking happens here
+            return false;
+        }
+
+        /**
+         * Reverts every choice the search has made, leaving the
+         * configuration as it was before the search.
+         */
+        void unwind() {
+            if (atGoal) {
+                atGoal = false;
+                config.unmake();
+            }
+            for (; frames > 1; frames--) {
+                config.unmake();
+            }
+            frames = 0;
+        }
+
+        /**
+         * Pushes a frame for the current configuration.
+         */
+        private void open() {
+            if (frames == decisions.length) {
+                int capacity = 2 * frames;
+                decisions = Arrays.copyOf(decisions, capacity);
+                choices = Arrays.copyOf(choices, capacity);
+                next = Arrays.copyOf(next, capacity);
+                found = Arrays.copyOf(found, capacity);
+            }
+            int decision = -1;
+            int count;
+            if (strategy == null) {
+                count = config.choices();
+            } else {
+                decision = strategy.select(config);
+                count = decision < 0 ? 0 : config.choices(decision);
+            }
+            decisions[frames] = decision;
+            choices[frames] = count;
+            next[frames] = 0;
+            found[frames] = solutions;
+            nodes++;
+            metrics.expanded();
+            metrics.reached(frames);
+            if (count == 0) {
+                metrics.deadEnd();
+            }
+            frames++;
         }
-        return Optional.empty();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,152 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Solves a safe with the backtracking search, searching a snapshot of it
+ * in place, on several threads if asked to. Listing and counting
+ * solutions always runs on one thread. A solver for several threads keeps
+ * its pool of workers between solves, until it is closed.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class BacktrackingSolver implements EnumeratingSolver {
+
+    private final boolean debug;
+    private final BranchingStrategy strategy;
+    private final TranspositionTable table;
+    /**
+     * Searches on several threads, null for one thread
+     */
+    private final ParallelBacktracker parallel;
+
+    /**
+     * The configurations expanded by the last solve or count
+     */
+    private long nodes;
+
+    /**
+     * Creates a single threaded solver that branches fail-first.
+     *
+     * @param debug Is debugging output enabled?
+     */
+    public BacktrackingSolver(boolean debug) {
+        this(debug, new MostConstrainedStrategy(), 1);
+    }
+
+    /**
+     * Creates a solver.
+     *
+     * @param debug       Is debugging output enabled? Only used on one thread.
+     * @param strategy    the branching strategy, or null for the order of the
+     *                    model itself
+     * @param parallelism the number of threads to search on
+     */
+    public BacktrackingSolver(boolean debug, BranchingStrategy strategy, int parallelism) {
+        this(debug, strategy, parallelism, null);
+    }
+
+    /**
+     * Creates a solver that remembers dead ends in a transposition table.
+     *
+     * @param debug       Is debugging output enabled? Only used on one thread.
+     * @param strategy    the branching strategy, or null for the order of the
+     *                    model itself
+     * @param parallelism the number of threads to search on
+     * @param table       the transposition table, or null for none. Ignored
+     *                    when searching on several threads, and cleared at
+     *                    the start of every search, as its keys only tell
+     *                    states of one safe apart.
+     */
+    public BacktrackingSolver(boolean debug, BranchingStrategy strategy, int parallelism,
+                              TranspositionTable table) {
+        this.debug = debug;
+        this.strategy = strategy;
+        this.table = table;
+        this.parallel = parallelism > 1 ? new ParallelBacktracker(parallelism, strategy) : null;
+    }
+
+    /**
+     * The transposition table, whose counters tell how well it was sized
+     * for the last search.
+     *
+     * @return the table, or null if there is none
+     */
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * How much work the last solve or count did.
+     *
+     * @return the number of configurations it expanded, or -1 if it ran
+     * on several threads
+     */
+    public long getNodesExpanded() {
+        return nodes;
+    }
+
+    @Override
+    public Optional<Configuration> solve(LasersModel model) {
+        nodes = 0;
+        if (!model.isValid()) {
+            return Optional.empty();
+        }
+        if (parallel != null) {
+            nodes = -1;
+            return parallel.solve(model);
+        }
+        Backtracker backtracker = new Backtracker(debug, strategy, clearedTable());
+        try {
+            return backtracker.solveInPlace(model.snapshot());
+        } finally {
+            nodes = backtracker.getNodesExpanded();
+        }
+    }
+
+    @Override
+    public Stream<Configuration> solutions(LasersModel model) {
+        if (!model.isValid()) {
+            return Stream.empty();
+        }
+        return new Backtracker(debug, strategy, clearedTable()).solutions(model);
+    }
+
+    @Override
+    public long count(LasersModel model, long atMost) {
+        nodes = 0;
+        if (!model.isValid()) {
+            return 0;
+        }
+        Backtracker backtracker = new Backtracker(debug, strategy, clearedTable());
+        try {
+            return backtracker.count(model, atMost);
+        } finally {
+            nodes = backtracker.getNodesExpanded();
+        }
+    }
+
+    /**
+     * Empties the table for a new search. The hashes cover the state of
+     * every cell but not the layout or the pillar numbers, so what failed
+     * on one safe could cut off a search of another safe of the same size.
+     *
+     * @return the table, or null if there is none
+     */
+    private TranspositionTable clearedTable() {
+        if (table != null) {
+            table.clear();
+        }
+        return table;
+    }
+
+    @Override
+    public void close() {
+        if (parallel != null) {
+            parallel.close();
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Solves a whole corpus of safes in one JVM. The safes are solved
+ * concurrently on a fixed number of threads, each with its own solver,
+ * and a safe that takes longer than the time limit is interrupted. One
+ * line is printed per safe as soon as it is done, in the order they
+ * finish, while a count of the safes done so far goes to standard error
+ * once a second.
+ * <p>
+ * Every line gives the file, the status (solved, unsolvable, timeout or
+ * error, with the error in place of the solution, including a stack
+ * overflow or running out of memory), the time taken in milliseconds, the configurations expanded,
+ * for the backtracking solvers on one thread, and the solution with its
+ * rows separated by slashes. It is run on the command line as follows:<br>
+ * <br>
+ *     java BatchSolver (directory | @file-list | safe-file) [solver] [threads] [seconds] [csv|json]<br>
+ * <br>
+ * A directory is searched for safes recursively, a file list names one
+ * safe per line. The solver is named as for SafeSolver and defaults to
+ * backtrack, the threads default to every core, the time limit to 10
+ * seconds and the output to csv. The cores are shared out between the
+ * threads, so the parallel and split: solvers of the workers together use
+ * no more threads than there are cores, and only one each when there are
+ * as many workers as cores.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class BatchSolver {
+
+    private final String solverName;
+    private final int threads;
+    private final long limitMillis;
+    private final boolean json;
+    private final PrintStream out;
+
+    /**
+     * The solver of every worker thread, made when the thread first needs
+     * one and kept for the safes after
+     */
+    private final ThreadLocal<Solver> solvers;
+    /**
+     * Every solver made for a worker, closed once the run is over
+     */
+    private final Queue<Solver> made = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger done = new AtomicInteger();
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param solverName  the solver to use, as named for SafeSolver
+     * @param threads     the number of safes to solve at the same time
+     * @param limitMillis the time one safe may take
+     * @param json        true for JSON lines, false for CSV
+     * @param out         where the results go
+     * @throws IllegalArgumentException if the solver name is unknown
+     */
+    public BatchSolver(String solverName, int threads, long limitMillis, boolean json, PrintStream out) {
+        SafeSolver.create(solverName, false, 1).close();
+        this.solverName = solverName;
+        this.threads = threads;
+        this.limitMillis = limitMillis;
+        this.json = json;
+        this.out = out;
+        int cores = Math.max(1, Runtime.getRuntime().availableProcessors() / threads);
+        this.solvers = ThreadLocal.withInitial(() -> {
+            Solver solver = SafeSolver.create(this.solverName, false, cores);
+            made.add(solver);
+            return solver;
+        });
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 1 || args.length > 5) {
+            System.out.println("Usage: java BatchSolver (directory | @file-list | safe-file) [solver] [threads]"
+                    + " [seconds] [csv|json]");
+            return;
+        }
+        String solver = args.length >= 2 ? args[1] : "backtrack";
+        int threads = args.length >= 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        double seconds = args.length >= 4 ? Double.parseDouble(args[3]) : 10;
+        boolean json = args.length == 5 && args[4].equals("json");
+
+        List<Path> safes = list(args[0]);
+        BatchSolver batch = new BatchSolver(solver, threads, (long) (seconds * 1000), json, System.out);
+        double start = System.currentTimeMillis();
+        batch.run(safes);
+        System.err.println("\rFinished " + safes.size() + " safes in " +
+                (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+    }
+
+    /**
+     * The safes named on the command line.
+     *
+     * @param source a directory, @ and a file listing one safe per line, or
+     *               a single safe
+     * @return the safes
+     * @throws IOException if the directory or the list can not be read
+     */
+    private static List<Path> list(String source) throws IOException {
+        if (source.startsWith("@")) {
+            try (Stream<String> lines = Files.lines(Paths.get(source.substring(1)))) {
+                return lines.map(String::trim)
+                        .filter(line -> !line.isEmpty())
+                        .map(Paths::get)
+                        .collect(Collectors.toList());
+            }
+        }
+        Path path = Paths.get(source);
+        if (!Files.isDirectory(path)) {
+            List<Path> single = new ArrayList<>();
+            single.add(path);
+            return single;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            return files.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Solves every safe, printing each result as it comes in, and returns
+     * once all are done.
+     *
+     * @param safes the safes
+     * @throws InterruptedException if interrupted while waiting for them
+     */
+    public void run(List<Path> safes) throws InterruptedException {
+        if (!json) {
+            out.println("file,status,millis,nodes,solution");
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "batch-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(() -> System.err.print("\r" + done.get() + "/" + safes.size()),
+                1, 1, TimeUnit.SECONDS);
+        for (Path safe : safes) {
+            pool.execute(() -> solve(safe, timer));
+        }
+        pool.shutdown();
+        while (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+            // keep waiting, the time limits end every solve
+        }
+        timer.shutdownNow();
+        made.forEach(Solver::close);
+        made.clear();
+        out.flush();
+    }
+
+    /**
+     * Solves one safe on the current thread and prints the result.
+     *
+     * @param safe  the safe
+     * @param timer interrupts the solve once the time limit is up
+     */
+    private void solve(Path safe, ScheduledExecutorService timer) {
+        Alarm alarm = new Alarm(Thread.currentThread());
+        ScheduledFuture<?> scheduled = timer.schedule(alarm, limitMillis, TimeUnit.MILLISECONDS);
+        long start = System.nanoTime();
+        String status;
+        String solution = "";
+        long nodes = -1;
+        try {
+            Solver solver = solvers.get();
+            Optional<Configuration> sol = solver.solve(new LasersModel(safe.toString()));
+            if (solver instanceof BacktrackingSolver) {
+                nodes = ((BacktrackingSolver) solver).getNodesExpanded();
+            }
+            if (sol.isPresent()) {
+                status = "solved";
+                solution = rows((LasersModel) sol.get());
+            } else {
+                status = "unsolvable";
+            }
+        } catch (Exception | StackOverflowError | OutOfMemoryError e) {
+            // one safe too deep or too large for the JVM does not end the batch
+            status = "error";
+            solution = e instanceof Error || e.getMessage() == null ? e.toString() : e.getMessage();
+        } finally {
+            scheduled.cancel(false);
+        }
+        if (alarm.finish()) {
+            status = "timeout";
+            solution = "";
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        report(safe.toString(), status, millis, nodes, solution);
+        done.incrementAndGet();
+    }
+
+    /**
+     * Prints the result of one safe as a single line.
+     */
+    private void report(String file, String status, long millis, long nodes, String solution) {
+        String count = nodes < 0 ? "" : Long.toString(nodes);
+        String line;
+        if (json) {
+            line = "{\"file\":" + jsonString(file) + ",\"status\":\"" + status + "\",\"millis\":" + millis
+                    + ",\"nodes\":" + (nodes < 0 ? "null" : count) + ",\"solution\":" + jsonString(solution) + "}";
+        } else {
+            line = csvField(file) + "," + status + "," + millis + "," + count + "," + csvField(solution);
+        }
+        out.println(line);
+    }
+
+    /**
+     * The cells of a solved safe, row by row with a slash between rows.
+     */
+    private static String rows(LasersModel model) {
+        StringBuilder rows = new StringBuilder(model.getHeight() * (model.getWidth() + 1));
+        for (int r = 0; r < model.getHeight(); r++) {
+            if (r > 0) {
+                rows.append('/');
+            }
+            for (int c = 0; c < model.getWidth(); c++) {
+                rows.append(model.getGrid(r, c));
+            }
+        }
+        return rows.toString();
+    }
+
+    private static String csvField(String field) {
+        if (field.indexOf(',') == -1 && field.indexOf('"') == -1 && field.indexOf('\n') == -1) {
+            return field;
+        }
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+
+    private static String jsonString(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char ch = text.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                quoted.append('\\').append(ch);
+            } else if (ch < ' ') {
+                quoted.append(String.format("\\u%04x", (int) ch));
+            } else {
+                quoted.append(ch);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    /**
+     * Interrupts a worker once the time limit of its safe is up, unless
+     * the safe was finished first. The interrupt never leaks into the
+     * next safe of the worker.
+     */
+    private static class Alarm implements Runnable {
+        private final Thread worker;
+        private boolean finished;
+        private boolean rang;
+
+        Alarm(Thread worker) {
+            this.worker = worker;
+        }
+
+        @Override
+        public synchronized void run() {
+            if (!finished) {
+                rang = true;
+                worker.interrupt();
+            }
+        }
+
+        /**
+         * Marks the safe as finished and clears an interrupt the alarm may
+         * have left on the worker.
+         *
+         * @return true if the time limit was up before the safe finished
+         */
+        synchronized boolean finish() {
+            finished = true;
+            if (rang) {
+                Thread.interrupted();
+            }
+            return rang;
+        }
+    }
+}
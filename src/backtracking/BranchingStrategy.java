@@ -0,0 +1,18 @@
+package backtracking;
+
+/**
+ * Decides which open decision of a configuration the search branches on
+ * next. The order does not change which solutions exist, only how much of
+ * the tree has to be searched to find one.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public interface BranchingStrategy {
+    /**
+     * Pick the decision to branch on.
+     *
+     * @param config the configuration being searched
+     * @return an open decision of config, or -1 if none is open
+     */
+    int select(ReversibleConfiguration config);
+}
@@ -0,0 +1,578 @@
+package backtracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * A small conflict driven clause learning SAT solver. It uses two watched
+ * literals per clause for propagation, learns first-UIP clauses on every
+ * conflict and jumps back non-chronologically, picks decisions by VSIDS
+ * activity with saved phases, and restarts on the Luby sequence. Learnt
+ * clauses are ranked by the number of decision levels among their
+ * literals (LBD), and the worse half of them is deleted whenever there are
+ * too many, so memory and propagation stay bounded on hard instances.
+ * Clauses spanning at most two levels are kept for good.
+ * <p>
+ * Variables are numbered from 1 and literals are written as in DIMACS,
+ * v for the variable being true and -v for it being false.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class CdclEngine {
+
+    private static final double DECAY = 0.95;
+    private static final int RESTART_BASE = 100;
+
+    /**
+     * Learnt clauses whose literals span at most this many decision levels
+     * are never deleted
+     */
+    private static final int GLUE = 2;
+    /**
+     * The number of learnt clauses that triggers the first deletion, and
+     * how much that number grows after each
+     */
+    private static final int REDUCE_BASE = 2000;
+    private static final int REDUCE_STEP = 300;
+
+    private final int variables;
+
+    /**
+     * The value of every internal literal (2 * variable + sign): 1 true,
+     * -1 false, 0 unassigned
+     */
+    private final byte[] value;
+    private final int[] level;
+    private final int[][] reason;
+    private final boolean[] phase;
+    private final boolean[] seen;
+
+    /**
+     * The clauses watching each internal literal, to be visited when that
+     * literal becomes false
+     */
+    private final int[][][] watches;
+    private final int[] watchCount;
+
+    private final int[] trail;
+    private int trailSize;
+    private int propagated;
+    private final int[] levelStart;
+    private int decisionLevel;
+
+    private final double[] activity;
+    private double increment = 1.0;
+    /**
+     * A binary max heap of variables ordered by activity, and where each
+     * variable sits in it, -1 when it is not in the heap
+     */
+    private final int[] heap;
+    private final int[] heapIndex;
+    private int heapSize;
+
+    /**
+     * The learnt clauses of two literals or more, oldest first, and the
+     * number of decision levels each spanned when it was learnt
+     */
+    private final ArrayList<int[]> learnts = new ArrayList<>();
+    private int[] lbds = new int[64];
+    private int reduceLimit = REDUCE_BASE;
+    /**
+     * Marks the levels already counted by lbd, with the current stamp
+     */
+    private final int[] levelStamp;
+    private int stamp;
+
+    private boolean unsatisfiable;
+    private long conflicts;
+    private long deleted;
+
+    /**
+     * Creates a solver with no clauses.
+     *
+     * @param variables the number of variables
+     */
+    public CdclEngine(int variables) {
+        this.variables = variables;
+        value = new byte[2 * variables];
+        level = new int[variables];
+        reason = new int[variables][];
+        phase = new boolean[variables];
+        seen = new boolean[variables];
+        watches = new int[2 * variables][][];
+        watchCount = new int[2 * variables];
+        trail = new int[variables];
+        levelStart = new int[variables + 1];
+        activity = new double[variables];
+        levelStamp = new int[variables + 1];
+        heap = new int[variables];
+        heapIndex = new int[variables];
+        for (int v = 0; v < variables; v++) {
+            heapIndex[v] = -1;
+            insert(v);
+        }
+    }
+
+    /**
+     * Adds a clause. Must be called before solve.
+     *
+     * @param literals the literals of the clause, in DIMACS form
+     */
+    public void addClause(int... literals) {
+        if (unsatisfiable) {
+            return;
+        }
+        int[] clause = new int[literals.length];
+        int size = 0;
+        for (int literal : literals) {
+            int lit = literal > 0 ? 2 * (literal - 1) : 2 * (-literal - 1) + 1;
+            if (value[lit] == 1) {
+                return;
+            }
+            boolean keep = value[lit] == 0;
+            for (int k = 0; k < size && keep; k++) {
+                if (clause[k] == (lit ^ 1)) {
+                    return;
+                }
+                keep = clause[k] != lit;
+            }
+            if (keep) {
+                clause[size++] = lit;
+            }
+        }
+        if (size == 0) {
+            unsatisfiable = true;
+        } else if (size == 1) {
+            assign(clause[0], null);
+            unsatisfiable = propagate() != null;
+        } else {
+            clause = Arrays.copyOf(clause, size);
+            watch(clause[0], clause);
+            watch(clause[1], clause);
+        }
+    }
+
+    /**
+     * Searches for an assignment satisfying every clause. Interrupting the
+     * thread stops the search, which then returns false.
+     *
+     * @return true if there is one, false if the clauses are unsatisfiable
+     */
+    public boolean solve() {
+        if (unsatisfiable) {
+            return false;
+        }
+        int restart = 1;
+        long limit = luby(restart) * RESTART_BASE;
+        long sinceRestart = 0;
+        ArrayList<Integer> learnt = new ArrayList<>();
+        while (true) {
+            int[] conflict = propagate();
+            if (conflict != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    backtrack(0);
+                    return false;
+                }
+                conflicts++;
+                sinceRestart++;
+                if (decisionLevel == 0) {
+                    unsatisfiable = true;
+                    return false;
+                }
+                int backLevel = analyze(conflict, learnt);
+                backtrack(backLevel);
+                int[] clause = new int[learnt.size()];
+                for (int k = 0; k < clause.length; k++) {
+                    clause[k] = learnt.get(k);
+                }
+                if (clause.length == 1) {
+                    assign(clause[0], null);
+                } else {
+                    watch(clause[0], clause);
+                    watch(clause[1], clause);
+                    assign(clause[0], clause);
+                    learn(clause);
+                }
+                increment /= DECAY;
+            } else {
+                if (sinceRestart >= limit) {
+                    backtrack(0);
+                    sinceRestart = 0;
+                    limit = luby(++restart) * RESTART_BASE;
+                }
+                int v = pickBranch();
+                if (v < 0) {
+                    return true;
+                }
+                levelStart[decisionLevel++] = trailSize;
+                assign(2 * v + (phase[v] ? 0 : 1), null);
+            }
+        }
+    }
+
+    /**
+     * The value of a variable in the assignment found by solve.
+     *
+     * @param variable the variable, from 1
+     * @return true if it is true
+     */
+    public boolean value(int variable) {
+        return value[2 * (variable - 1)] == 1;
+    }
+
+    /**
+     * How many conflicts the solver has run into so far.
+     *
+     * @return the number of conflicts
+     */
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * How many learnt clauses the solver holds now.
+     *
+     * @return the number of learnt clauses of two literals or more
+     */
+    public int getLearntClauses() {
+        return learnts.size();
+    }
+
+    /**
+     * How many learnt clauses the solver has deleted so far.
+     *
+     * @return the number of deleted clauses
+     */
+    public long getDeletedClauses() {
+        return deleted;
+    }
+
+    /**
+     * Keeps a learnt clause with its LBD, deleting the worse half of the
+     * learnt clauses when there are too many.
+     */
+    private void learn(int[] clause) {
+        stamp++;
+        int levels = 0;
+        for (int lit : clause) {
+            int l = level[lit >> 1];
+            if (levelStamp[l] != stamp) {
+                levelStamp[l] = stamp;
+                levels++;
+            }
+        }
+        if (learnts.size() == lbds.length) {
+            lbds = Arrays.copyOf(lbds, 2 * lbds.length);
+        }
+        lbds[learnts.size()] = levels;
+        learnts.add(clause);
+        if (learnts.size() >= reduceLimit) {
+            reduce();
+        }
+    }
+
+    /**
+     * Deletes up to half of the learnt clauses, those spanning the most
+     * levels first and the oldest among equals. Glue clauses and clauses
+     * that are the reason of an assignment stay.
+     */
+    private void reduce() {
+        int count = learnts.size();
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> lbds[a] != lbds[b] ? Integer.compare(lbds[b], lbds[a]) : Integer.compare(a, b));
+        Set<int[]> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (int k = 0; k < count && removed.size() < count / 2; k++) {
+            int[] clause = learnts.get(order[k]);
+            if (lbds[order[k]] > GLUE && !isReason(clause)) {
+                removed.add(clause);
+            }
+        }
+
+        int kept = 0;
+        for (int k = 0; k < count; k++) {
+            int[] clause = learnts.get(k);
+            if (!removed.contains(clause)) {
+                learnts.set(kept, clause);
+                lbds[kept++] = lbds[k];
+            }
+        }
+        learnts.subList(kept, count).clear();
+        for (int lit = 0; lit < watches.length; lit++) {
+            int[][] list = watches[lit];
+            int j = 0;
+            for (int i = 0; i < watchCount[lit]; i++) {
+                if (!removed.contains(list[i])) {
+                    list[j++] = list[i];
+                }
+            }
+            for (int i = j; i < watchCount[lit]; i++) {
+                list[i] = null;
+            }
+            watchCount[lit] = j;
+        }
+        deleted += removed.size();
+        reduceLimit = Math.max(reduceLimit, kept) + REDUCE_STEP;
+    }
+
+    /**
+     * Is a clause the reason its first literal is true? The implied
+     * literal of a clause is always kept first.
+     */
+    private boolean isReason(int[] clause) {
+        return value[clause[0]] == 1 && reason[clause[0] >> 1] == clause;
+    }
+
+    private void assign(int lit, int[] why) {
+        int v = lit >> 1;
+        value[lit] = 1;
+        value[lit ^ 1] = -1;
+        level[v] = decisionLevel;
+        reason[v] = why;
+        trail[trailSize++] = lit;
+    }
+
+    private void watch(int lit, int[] clause) {
+        int[][] list = watches[lit];
+        if (list == null) {
+            list = watches[lit] = new int[4][];
+        } else if (watchCount[lit] == list.length) {
+            list = watches[lit] = Arrays.copyOf(list, 2 * list.length);
+        }
+        list[watchCount[lit]++] = clause;
+    }
+
+    /**
+     * Assigns every literal implied by unit clauses.
+     *
+     * @return a clause with every literal false, or null if there is none
+     */
+    private int[] propagate() {
+        while (propagated < trailSize) {
+            int falseLit = trail[propagated++] ^ 1;
+            int[][] list = watches[falseLit];
+            int count = watchCount[falseLit];
+            int i = 0;
+            int j = 0;
+            while (i < count) {
+                int[] clause = list[i++];
+                // keep the false literal in the second slot
+                if (clause[0] == falseLit) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLit;
+                }
+                if (value[clause[0]] == 1) {
+                    list[j++] = clause;
+                    continue;
+                }
+                boolean moved = false;
+                for (int k = 2; k < clause.length; k++) {
+                    if (value[clause[k]] != -1) {
+                        clause[1] = clause[k];
+                        clause[k] = falseLit;
+                        watch(clause[1], clause);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+                list[j++] = clause;
+                if (value[clause[0]] == -1) {
+                    while (i < count) {
+                        list[j++] = list[i++];
+                    }
+                    watchCount[falseLit] = j;
+                    propagated = trailSize;
+                    return clause;
+                }
+                assign(clause[0], clause);
+            }
+            watchCount[falseLit] = j;
+        }
+        return null;
+    }
+
+    /**
+     * Derives the first-UIP clause of a conflict. The asserting literal is
+     * put first and a literal of the level to jump back to second.
+     *
+     * @param conflict the clause that became false
+     * @param learnt   receives the learnt clause
+     * @return the level to jump back to
+     */
+    private int analyze(int[] conflict, ArrayList<Integer> learnt) {
+        learnt.clear();
+        learnt.add(-1);
+        int open = 0;
+        int lit = -1;
+        int index = trailSize - 1;
+        int[] clause = conflict;
+        do {
+            for (int k = lit == -1 ? 0 : 1; k < clause.length; k++) {
+                int q = clause[k];
+                int v = q >> 1;
+                if (!seen[v] && level[v] > 0) {
+                    bump(v);
+                    seen[v] = true;
+                    if (level[v] >= decisionLevel) {
+                        open++;
+                    } else {
+                        learnt.add(q);
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            lit = trail[index--];
+            clause = reason[lit >> 1];
+            seen[lit >> 1] = false;
+            open--;
+        } while (open > 0);
+        learnt.set(0, lit ^ 1);
+
+        int backLevel = 0;
+        for (int k = 1; k < learnt.size(); k++) {
+            int v = learnt.get(k) >> 1;
+            seen[v] = false;
+            if (level[v] > backLevel) {
+                backLevel = level[v];
+                int second = learnt.get(1);
+                learnt.set(1, learnt.get(k));
+                learnt.set(k, second);
+            }
+        }
+        return backLevel;
+    }
+
+    /**
+     * Undoes every assignment above a decision level, saving the phases.
+     */
+    private void backtrack(int target) {
+        if (decisionLevel <= target) {
+            return;
+        }
+        for (int k = trailSize - 1; k >= levelStart[target]; k--) {
+            int lit = trail[k];
+            int v = lit >> 1;
+            value[lit] = 0;
+            value[lit ^ 1] = 0;
+            reason[v] = null;
+            phase[v] = (lit & 1) == 0;
+            if (heapIndex[v] < 0) {
+                insert(v);
+            }
+        }
+        trailSize = levelStart[target];
+        propagated = trailSize;
+        decisionLevel = target;
+    }
+
+    /**
+     * The unassigned variable with the highest activity.
+     *
+     * @return the variable, or -1 if all are assigned
+     */
+    private int pickBranch() {
+        while (heapSize > 0) {
+            int v = removeMax();
+            if (value[2 * v] == 0) {
+                return v;
+            }
+        }
+        return -1;
+    }
+
+    private void bump(int v) {
+        activity[v] += increment;
+        if (activity[v] > 1e100) {
+            for (int k = 0; k < variables; k++) {
+                activity[k] *= 1e-100;
+            }
+            increment *= 1e-100;
+        }
+        if (heapIndex[v] >= 0) {
+            siftUp(heapIndex[v]);
+        }
+    }
+
+    private void insert(int v) {
+        heap[heapSize] = v;
+        heapIndex[v] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    private int removeMax() {
+        int top = heap[0];
+        heapIndex[top] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndex[heap[0]] = 0;
+            siftDown(0);
+        }
+        return top;
+    }
+
+    private void siftUp(int i) {
+        int v = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >> 1;
+            if (activity[heap[parent]] >= activity[v]) {
+                break;
+            }
+            heap[i] = heap[parent];
+            heapIndex[heap[i]] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    private void siftDown(int i) {
+        int v = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && activity[heap[child + 1]] > activity[heap[child]]) {
+                child++;
+            }
+            if (activity[heap[child]] <= activity[v]) {
+                break;
+            }
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+        heap[i] = v;
+        heapIndex[v] = i;
+    }
+
+    /**
+     * The Luby sequence 1 1 2 1 1 2 4 1 1 2 ..., used to space restarts.
+     *
+     * @param i the position in the sequence, from 1
+     * @return the element
+     */
+    private static long luby(int i) {
+        while (true) {
+            int k = 1;
+            while ((1 << k) - 1 < i) {
+                k++;
+            }
+            if ((1 << k) - 1 == i) {
+                return 1L << (k - 1);
+            }
+            i -= (1 << (k - 1)) - 1;
+        }
+    }
+}
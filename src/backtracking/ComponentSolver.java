@@ -0,0 +1,259 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Solves a safe by splitting it into parts that do not interact and
+ * solving each part on its own. Cells only interact through the runs they
+ * share and the numbered pillars they sit next to, so a safe whose pillars
+ * wall it off into several rooms is as hard as its hardest room rather
+ * than the product of all of them.
+ * <p>
+ * A part is kept as the list of its cells. It is solved as the rectangle
+ * around it, cut out of the safe with every other cell of the rectangle
+ * turned into a pillar, and the lasers found are moved back by the offset
+ * of the rectangle into one solved safe. Splitting a safe therefore costs
+ * the size of the safe plus the rectangles of its parts, not a full copy
+ * of the safe per part.
+ * <p>
+ * Parts are solved one after the other, or on a pool of threads that
+ * lives as long as the solver, which should then be closed when done.
+ * Every thread solving parts makes one solver for them and closes it once
+ * the solve is over.
+ * <p>
+ * Interrupting the thread of a solve stops the parts still running, and
+ * solve returns empty with the interrupt flag set.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class ComponentSolver implements Solver {
+
+    /**
+     * Makes the solver of every thread solving parts, so parts solved at
+     * the same time never share one
+     */
+    private final Supplier<Solver> solvers;
+    private final int parallelism;
+    /**
+     * The threads solving parts at the same time, null to solve them on
+     * the calling thread
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Creates a solver that solves the parts one after the other.
+     *
+     * @param solvers makes the solver for the parts
+     */
+    public ComponentSolver(Supplier<Solver> solvers) {
+        this(solvers, 1);
+    }
+
+    /**
+     * Creates a solver.
+     *
+     * @param solvers     makes the solver of every thread solving parts
+     * @param parallelism the number of parts to solve at the same time
+     */
+    public ComponentSolver(Supplier<Solver> solvers, int parallelism) {
+        this.solvers = solvers;
+        this.parallelism = parallelism;
+        this.pool = parallelism <= 1 ? null : Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "component-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * One part of a safe: its cells and the rectangle around them
+     */
+    private static final class Part {
+        private final int[] cells;
+        private int top = Integer.MAX_VALUE;
+        private int left = Integer.MAX_VALUE;
+        private int bottom = -1;
+        private int right = -1;
+
+        Part(int size) {
+            cells = new int[size];
+        }
+
+        /**
+         * The part as a safe of its own.
+         */
+        LasersModel piece(LasersModel model) {
+            return model.restrict(cells, top, left, bottom - top + 1, right - left + 1);
+        }
+    }
+
+    /**
+     * Try find a solution, if one exists, for a given safe. Lasers already
+     * on the safe are kept.
+     *
+     * @param model the safe, which is not changed
+     * @return a solved copy of the safe, or empty if no solution
+     */
+    @Override
+    public Optional<Configuration> solve(LasersModel model) {
+        if (!model.isValid()) {
+            return Optional.empty();
+        }
+        SafeLayout layout = new SafeLayout(model);
+        int[] part = layout.components();
+        int count = 0;
+        for (int cell = 0; cell < layout.cells; cell++) {
+            count = Math.max(count, part[cell] + 1);
+        }
+        if (count <= 1) {
+            try (Solver solver = solvers.get()) {
+                return solver.solve(model);
+            }
+        }
+
+        int[] sizes = new int[count];
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (part[cell] >= 0) {
+                sizes[part[cell]]++;
+            }
+        }
+        Part[] parts = new Part[count];
+        for (int k = 0; k < count; k++) {
+            parts[k] = new Part(sizes[k]);
+            sizes[k] = 0;
+        }
+        for (int cell = 0; cell < layout.cells; cell++) {
+            if (part[cell] >= 0) {
+                Part owner = parts[part[cell]];
+                owner.cells[sizes[part[cell]]++] = cell;
+                int r = cell / layout.width;
+                int c = cell % layout.width;
+                owner.top = Math.min(owner.top, r);
+                owner.bottom = Math.max(owner.bottom, r);
+                owner.left = Math.min(owner.left, c);
+                owner.right = Math.max(owner.right, c);
+            }
+        }
+        // the smallest parts first, so a part without a solution is found early
+        Arrays.sort(parts, (a, b) -> Integer.compare(a.cells.length, b.cells.length));
+
+        boolean[] lasers = new boolean[layout.cells];
+        boolean solved = pool == null
+                ? solveEach(model, parts, lasers)
+                : solveAll(model, parts, lasers);
+        if (!solved) {
+            return Optional.empty();
+        }
+        return Optional.of(layout.solved(model, lasers));
+    }
+
+    /**
+     * Solves the parts one after the other, stopping at the first one
+     * without a solution or once the thread is interrupted.
+     *
+     * @param lasers where to mark the lasers of the solutions
+     * @return true if every part was solved
+     */
+    private boolean solveEach(LasersModel model, Part[] parts, boolean[] lasers) {
+        try (Solver solver = solvers.get()) {
+            for (Part part : parts) {
+                if (Thread.currentThread().isInterrupted() || !solvePart(solver, model, part, lasers)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Solves the parts on the pool, each thread taking the next part not
+     * started yet. Parts still running are interrupted, and parts not
+     * started yet dropped, as soon as one turns out to have no solution or
+     * the waiting thread is interrupted.
+     *
+     * @param lasers where to mark the lasers of the solutions
+     * @return true if every part was solved
+     * @throws IllegalStateException if a part failed
+     */
+    private boolean solveAll(LasersModel model, Part[] parts, boolean[] lasers) {
+        AtomicInteger next = new AtomicInteger();
+        CompletionService<Boolean> done = new ExecutorCompletionService<>(pool);
+        int workers = Math.min(parallelism, parts.length);
+        ArrayList<Future<Boolean>> tasks = new ArrayList<>(workers);
+        try {
+            for (int w = 0; w < workers; w++) {
+                tasks.add(done.submit(() -> {
+                    try (Solver solver = solvers.get()) {
+                        for (int k = next.getAndIncrement(); k < parts.length; k = next.getAndIncrement()) {
+                            // parts are disjoint, so the threads mark different cells
+                            if (Thread.currentThread().isInterrupted()
+                                    || !solvePart(solver, model, parts[k], lasers)) {
+                                return false;
+                            }
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (int w = 0; w < workers; w++) {
+                if (!done.take().get()) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            // the parts are stopped below, the caller sees the interrupt
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            for (Future<Boolean> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Solves one part and marks the lasers of its solution.
+     *
+     * @return true if the part was solved
+     */
+    private static boolean solvePart(Solver solver, LasersModel model, Part part, boolean[] lasers) {
+        Optional<Configuration> solution = solver.solve(part.piece(model));
+        if (!solution.isPresent()) {
+            return false;
+        }
+        LasersModel piece = (LasersModel) solution.get();
+        int width = model.getWidth();
+        for (int cell : part.cells) {
+            if (piece.getGrid(cell / width - part.top, cell % width - part.left) == LasersModel.LASER) {
+                lasers[cell] = true;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stops the threads solving parts, interrupting any solve still
+     * running.
+     */
+    @Override
+    public void close() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
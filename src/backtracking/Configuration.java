@@ -1,6 +1,7 @@
 package backtracking;
 
 import java.util.Collection;
+import java.util.Iterator;
 
 /**
  * The representation of a single configuration for a puzzle.
@@ -18,6 +19,18 @@ public interface Configuration {
      */
     Collection<Configuration> getSuccessors();
 
+    /**
+     * Get the successors from the current one, one at a time. The
+     * backtrackers use this, so a configuration that builds each successor
+     * only when it is asked for saves the ones below a solution. The
+     * current configuration is not changed.
+     *
+     * @return All successors, valid and invalid
+     */
+    default Iterator<Configuration> successors() {
+        return getSuccessors().iterator();
+    }
+
     /**
      * Is the current configuration valid or not?
      *
@@ -25,6 +38,15 @@ public interface Configuration {
      */
     boolean isValid();
 
+    /**
+     * Why the current configuration is not valid, for the metrics.
+     *
+     * @return the reason, or null if it is valid or cannot tell
+     */
+    default PruneReason pruneReason() {
+        return null;
+    }
+
     /**
      * Is the current configuration a goal?
      *
@@ -0,0 +1,240 @@
+package backtracking;
+
+import java.util.Arrays;
+
+/**
+ * Knuth's Algorithm X on dancing links, for exact cover problems with
+ * secondary items. Every primary item has to be covered by exactly one
+ * chosen option, every secondary item by at most one.
+ * <p>
+ * The links are kept in parallel int arrays instead of node objects, so
+ * covering and uncovering walk flat memory.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class DancingLinks {
+
+    private final int primary;
+    private final int items;
+
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    /**
+     * The item header each node belongs to
+     */
+    private int[] item;
+    /**
+     * The option each node belongs to
+     */
+    private int[] option;
+    /**
+     * The number of options still linked into each item
+     */
+    private int[] size;
+    private int nodes;
+
+    /**
+     * The first node of every option
+     */
+    private int[] optionStart;
+    private int options;
+
+    /**
+     * The options chosen so far, the ones chosen up front first
+     */
+    private int[] chosen;
+    private int chosenCount;
+
+    /**
+     * Creates an empty matrix. Items 0 to primary - 1 are primary, the rest
+     * are secondary.
+     *
+     * @param primary   the number of primary items
+     * @param secondary the number of secondary items
+     */
+    public DancingLinks(int primary, int secondary) {
+        this.primary = primary;
+        this.items = primary + secondary;
+        int capacity = 4 * (items + 1);
+        left = new int[capacity];
+        right = new int[capacity];
+        up = new int[capacity];
+        down = new int[capacity];
+        item = new int[capacity];
+        option = new int[capacity];
+        size = new int[items + 1];
+        optionStart = new int[16];
+        chosen = new int[16];
+
+        // node 0 is the root, nodes 1 to items are the item headers
+        for (int i = 0; i <= items; i++) {
+            up[i] = i;
+            down[i] = i;
+            item[i] = i;
+            left[i] = i;
+            right[i] = i;
+        }
+        // only primary items are linked into the root list
+        for (int i = 0; i <= primary; i++) {
+            left[i] = i == 0 ? primary : i - 1;
+            right[i] = i == primary ? 0 : i + 1;
+        }
+        nodes = items + 1;
+    }
+
+    /**
+     * Adds an option covering the given items.
+     *
+     * @param optionItems the items, numbered from 0
+     * @return the number of the new option
+     */
+    public int addOption(int... optionItems) {
+        if (nodes + optionItems.length > left.length) {
+            grow(Math.max(2 * left.length, nodes + optionItems.length));
+        }
+        if (options == optionStart.length) {
+            optionStart = Arrays.copyOf(optionStart, 2 * options);
+        }
+        int first = nodes;
+        optionStart[options] = first;
+        for (int k = 0; k < optionItems.length; k++) {
+            int header = optionItems[k] + 1;
+            int node = nodes++;
+            item[node] = header;
+            option[node] = options;
+            // append to the bottom of the item's column
+            up[node] = up[header];
+            down[node] = header;
+            down[up[header]] = node;
+            up[header] = node;
+            size[header]++;
+            // append to the end of the option's row
+            left[node] = k == 0 ? node : node - 1;
+            right[node] = first;
+            right[left[node]] = node;
+            left[first] = node;
+        }
+        return options++;
+    }
+
+    /**
+     * Chooses an option before searching, for parts of the solution that
+     * are already known. The option must not share an item with an option
+     * chosen earlier.
+     *
+     * @param chosenOption the option
+     */
+    public void select(int chosenOption) {
+        int first = optionStart[chosenOption];
+        int node = first;
+        do {
+            cover(item[node]);
+            node = right[node];
+        } while (node != first);
+        push(chosenOption);
+    }
+
+    /**
+     * Searches for an exact cover. Interrupting the thread stops the
+     * search, which then reports no solution.
+     *
+     * @return the chosen options of the first solution found, or null if
+     * there is none
+     */
+    public int[] solve() {
+        int fixed = chosenCount;
+        if (search()) {
+            return Arrays.copyOf(chosen, chosenCount);
+        }
+        chosenCount = fixed;
+        return null;
+    }
+
+    /**
+     * The recursive part of solve. On success the chosen options are left
+     * in chosen.
+     */
+    private boolean search() {
+        if (right[0] == 0) {
+            return true;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return false;
+        }
+        // branch on the primary item with the fewest options left
+        int best = right[0];
+        for (int c = right[best]; c != 0 && size[best] > 0; c = right[c]) {
+            if (size[c] < size[best]) {
+                best = c;
+            }
+        }
+        if (size[best] == 0) {
+            return false;
+        }
+        cover(best);
+        for (int row = down[best]; row != best; row = down[row]) {
+            push(option[row]);
+            for (int j = right[row]; j != row; j = right[j]) {
+                cover(item[j]);
+            }
+            if (search()) {
+                return true;
+            }
+            for (int j = left[row]; j != row; j = left[j]) {
+                uncover(item[j]);
+            }
+            chosenCount--;
+        }
+        uncover(best);
+        return false;
+    }
+
+    private void push(int chosenOption) {
+        if (chosenCount == chosen.length) {
+            chosen = Arrays.copyOf(chosen, 2 * chosenCount);
+        }
+        chosen[chosenCount++] = chosenOption;
+    }
+
+    /**
+     * Removes an item from the header list and every option that uses it
+     * from the other items.
+     */
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                up[down[j]] = up[j];
+                down[up[j]] = down[j];
+                size[item[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Exactly undoes cover, in reverse order.
+     */
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                size[item[j]]++;
+                up[down[j]] = j;
+                down[up[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+
+    private void grow(int capacity) {
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        up = Arrays.copyOf(up, capacity);
+        down = Arrays.copyOf(down, capacity);
+        item = Arrays.copyOf(item, capacity);
+        option = Arrays.copyOf(option, capacity);
+    }
+}
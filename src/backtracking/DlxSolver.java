@@ -0,0 +1,143 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+/**
+ * Solves a safe as an exact cover problem with dancing links.
+ * <p>
+ * Each horizontal and each vertical run of non pillar cells is a primary
+ * item that is covered either by the single laser in it or by an option
+ * declaring the run free of lasers. A laser option covers the runs of its
+ * cell, so no two lasers can see each other. A run without a laser also
+ * claims a secondary item for each of its cells, so a cell can not be in
+ * both a free row run and a free column run, which would leave it dark.
+ * A numbered pillar is a primary item covered by one option per way of
+ * picking its lasers among its free neighbors, and every neighbor that
+ * pattern leaves dark is a primary item covered by either the pattern or
+ * the laser on that neighbor, which keeps the two in agreement.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class DlxSolver implements Solver {
+
+    /**
+     * Try find a solution, if one exists, for a given safe. Lasers already
+     * on the safe are kept.
+     *
+     * @param model the safe, which is not changed
+     * @return a solved copy of the safe, or empty if no solution
+     */
+    @Override
+    public Optional<Configuration> solve(LasersModel model) {
+        if (!model.isValid()) {
+            return Optional.empty();
+        }
+        SafeLayout layout = new SafeLayout(model);
+        int cells = layout.cells;
+
+        // one item per numbered pillar and one per pillar and free neighbor
+        int[] pillarItem = new int[cells];
+        int[][] pairItem = new int[cells][];
+        int next = layout.runs;
+        for (int cell = 0; cell < cells; cell++) {
+            if (layout.isNumbered(cell)) {
+                pillarItem[cell] = next++;
+                pairItem[cell] = new int[layout.neighbors(cell, false).length];
+                for (int k = 0; k < pairItem[cell].length; k++) {
+                    pairItem[cell][k] = next++;
+                }
+            }
+        }
+        DancingLinks dlx = new DancingLinks(next, cells);
+
+        // a laser on each free cell
+        int[] laserOption = new int[cells];
+        ArrayList<Integer> optionCells = new ArrayList<>();
+        ArrayList<Integer> laserItems = new ArrayList<>();
+        for (int cell = 0; cell < cells; cell++) {
+            laserOption[cell] = -1;
+            if (layout.isPillar(cell)) {
+                continue;
+            }
+            laserItems.clear();
+            laserItems.add(layout.rowRun[cell]);
+            laserItems.add(layout.colRun[cell]);
+            for (int pillar : layout.neighbors(cell, true)) {
+                if (pairItem[pillar] != null) {
+                    int[] around = layout.neighbors(pillar, false);
+                    for (int k = 0; k < around.length; k++) {
+                        if (around[k] == cell) {
+                            laserItems.add(pairItem[pillar][k]);
+                        }
+                    }
+                }
+            }
+            laserOption[cell] = dlx.addOption(toArray(laserItems));
+            optionCells.add(cell);
+        }
+
+        // every run left without a laser
+        for (int run = 0; run < layout.runs; run++) {
+            int[] runItems = new int[layout.runCells[run].length + 1];
+            runItems[0] = run;
+            for (int k = 0; k < layout.runCells[run].length; k++) {
+                runItems[k + 1] = next + layout.runCells[run][k];
+            }
+            dlx.addOption(runItems);
+            optionCells.add(-1);
+        }
+
+        // every way of placing the lasers of a numbered pillar
+        for (int cell = 0; cell < cells; cell++) {
+            if (pairItem[cell] == null) {
+                continue;
+            }
+            int need = layout.need(cell);
+            int free = pairItem[cell].length;
+            for (int pattern = 0; pattern < 1 << free; pattern++) {
+                if (Integer.bitCount(pattern) != need) {
+                    continue;
+                }
+                ArrayList<Integer> patternItems = new ArrayList<>();
+                patternItems.add(pillarItem[cell]);
+                for (int k = 0; k < free; k++) {
+                    if ((pattern & (1 << k)) == 0) {
+                        patternItems.add(pairItem[cell][k]);
+                    }
+                }
+                dlx.addOption(toArray(patternItems));
+                optionCells.add(-1);
+            }
+        }
+
+        for (int cell = 0; cell < cells; cell++) {
+            if (model.getGrid(cell / layout.width, cell % layout.width) == LasersModel.LASER) {
+                dlx.select(laserOption[cell]);
+            }
+        }
+        int[] chosen = dlx.solve();
+        if (chosen == null) {
+            return Optional.empty();
+        }
+
+        boolean[] lasers = new boolean[cells];
+        for (int chosenOption : chosen) {
+            int cell = optionCells.get(chosenOption);
+            if (cell >= 0) {
+                lasers[cell] = true;
+            }
+        }
+        return Optional.of(layout.solved(model, lasers));
+    }
+
+    private static int[] toArray(ArrayList<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
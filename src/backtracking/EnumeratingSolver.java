@@ -0,0 +1,33 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.util.stream.Stream;
+
+/**
+ * A solver that can go on past the first solution, to list every solution
+ * of a safe or just count them.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public interface EnumeratingSolver extends Solver {
+    /**
+     * Lists every solution of a safe, lazily, so a limited stream stops
+     * the search early. Lasers already on the safe are kept.
+     *
+     * @param model the safe, which is not changed
+     * @return solved copies of the safe
+     */
+    Stream<Configuration> solutions(LasersModel model);
+
+    /**
+     * Counts the solutions of a safe without building any of them. Lasers
+     * already on the safe are kept.
+     *
+     * @param model  the safe, which is not changed
+     * @param atMost stop once this many solutions have been found, 2 to
+     *               tell whether the solution is unique
+     * @return the number of solutions, at most atMost
+     */
+    long count(LasersModel model, long atMost);
+}
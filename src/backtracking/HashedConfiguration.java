@@ -0,0 +1,19 @@
+package backtracking;
+
+/**
+ * A configuration that can tell the backtracker when it is a transposition
+ * of one seen before, so a subtree that has already failed is not
+ * searched again.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public interface HashedConfiguration extends Configuration {
+    /**
+     * A hash of everything that decides whether this configuration can
+     * still be completed. Two configurations with the same hash are taken
+     * to be either both solvable or both not, however they were reached.
+     *
+     * @return the hash
+     */
+    long hash();
+}
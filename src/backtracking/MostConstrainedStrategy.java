@@ -0,0 +1,29 @@
+package backtracking;
+
+/**
+ * Branches on the open decision with the fewest choices left, so the
+ * search fails as early as possible when a position is hopeless. Ties go
+ * to the lowest numbered decision.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class MostConstrainedStrategy implements BranchingStrategy {
+
+    @Override
+    public int select(ReversibleConfiguration config) {
+        int count = config.decisionCount();
+        int best = -1;
+        int fewest = Integer.MAX_VALUE;
+        for (int decision = 0; decision < count; decision++) {
+            int choices = config.choices(decision);
+            if (choices > 0 && choices < fewest) {
+                best = decision;
+                fewest = choices;
+                if (choices == 1) {
+                    break;
+                }
+            }
+        }
+        return best;
+    }
+}
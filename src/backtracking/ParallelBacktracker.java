@@ -0,0 +1,487 @@
+package backtracking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A backtracker that searches the tree on several threads at once. The
+ * search is split into tasks on a ForkJoinPool, and a task near the root
+ * hands off a subtree whenever the pool runs low on queued work, so idle
+ * workers can steal from the unbalanced parts of the tree. Below
+ * SPLIT_DEPTH a task searches its subtree on its own.
+ * <br>
+ * In place searches do not copy the configuration for the tasks they
+ * hand off. Every worker keeps one copy of the root for the whole solve,
+ * and a task is just the choices leading to its subtree, which it makes
+ * on the copy of its worker before searching and reverts after. As soon as any task reaches
+ * a goal every other task stops. The tasks keep their own stacks of frames
+ * instead of recursing, so a deep tree does not overflow the stacks of the
+ * workers.
+ * <br>
+ * The pool lives as long as the backtracker, so one backtracker should
+ * serve many solves and be closed when done. Its workers are daemon
+ * threads. Interrupting a thread waiting in solve stops every task of
+ * that solve, and solve returns empty with the interrupt flag set.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class ParallelBacktracker implements AutoCloseable {
+
+    /**
+     * A task only splits off a subtree while its own queue holds fewer
+     * tasks than this
+     */
+    private static final int SURPLUS = 2;
+
+    /**
+     * Tasks only split off subtrees this close to the root, so there are
+     * few of them and their paths are short to replay
+     */
+    private static final int SPLIT_DEPTH = 20;
+
+    /**
+     * The number of frames the successor search of a task starts out with
+     */
+    private static final int INITIAL_FRAMES = 64;
+
+    /**
+     * Where the tasks report what they do
+     */
+    private static final SolverMetrics METRICS = SolverMetrics.getInstance();
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Picks the decision in place searches branch on, null to leave it to
+     * the configuration
+     */
+    private final BranchingStrategy strategy;
+
+    /**
+     * Initialize a new parallel backtracker using every available core.
+     */
+    public ParallelBacktracker() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Initialize a new parallel backtracker.
+     *
+     * @param parallelism the number of worker threads
+     */
+    public ParallelBacktracker(int parallelism) {
+        this(parallelism, null);
+    }
+
+    /**
+     * Initialize a new parallel backtracker that branches in the order
+     * given by a strategy when searching in place.
+     *
+     * @param parallelism the number of worker threads
+     * @param strategy    the branching strategy, or null for the order of
+     *                    the configuration itself
+     */
+    public ParallelBacktracker(int parallelism, BranchingStrategy strategy) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.strategy = strategy;
+    }
+
+    /**
+     * Try find a solution, if one exists, for a given configuration.
+     * Reversible configurations are searched in place, every worker on a
+     * copy of its own, other configurations through their successors.
+     *
+     * @param config A valid configuration
+     * @return A solution config, or empty if no solution
+     */
+    public Optional<Configuration> solve(Configuration config) {
+        long start = METRICS.solveStarted();
+        try {
+            ForkJoinTask<Void> root;
+            Search search;
+            if (config instanceof ReversibleConfiguration) {
+                search = new Search(((ReversibleConfiguration) config).snapshot());
+                root = pool.submit(new InPlaceTask(new int[0], strategy, search));
+            } else {
+                search = new Search(null);
+                root = pool.submit(new SuccessorTask(config, search, 0));
+            }
+            try {
+                root.get();
+            } catch (InterruptedException e) {
+                // stop the tasks of this solve and let the caller see the interrupt
+                search.cancelled = true;
+                Thread.currentThread().interrupt();
+                return Optional.empty();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+            return Optional.ofNullable(search.solution.get());
+        } finally {
+            METRICS.solveFinished(start);
+        }
+    }
+
+    /**
+     * Stops the worker threads, interrupting any solve still running.
+     */
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * What the tasks of one solve share
+     */
+    private static class Search {
+        final AtomicReference<Configuration> solution = new AtomicReference<>();
+        /**
+         * Set when the thread waiting for the solve was interrupted
+         */
+        volatile boolean cancelled;
+        /**
+         * The configuration an in place search starts from, never changed,
+         * and the copy of it every worker searches on
+         */
+        private final ReversibleConfiguration root;
+        private final Map<Thread, ReversibleConfiguration> configs = new ConcurrentHashMap<>();
+
+        Search(ReversibleConfiguration root) {
+            this.root = root;
+        }
+
+        /**
+         * The copy of the root the current worker searches on. A task
+         * leaves it as it found it before another task can run on the same
+         * worker.
+         */
+        ReversibleConfiguration config() {
+            return configs.computeIfAbsent(Thread.currentThread(), worker -> root.snapshot());
+        }
+
+        /**
+         * Should the tasks stop searching?
+         */
+        boolean isOver() {
+            return solution.get() != null || cancelled || Thread.currentThread().isInterrupted();
+        }
+    }
+
+    /**
+     * Should the current task hand off work instead of doing it itself?
+     *
+     * @param depth the depth of the subtree it would hand off
+     * @return true if the subtree is near the root and the pool is running
+     * low on queued tasks
+     */
+    private static boolean shouldSplit(int depth) {
+        return depth < SPLIT_DEPTH && RecursiveAction.getSurplusQueuedTaskCount() < SURPLUS;
+    }
+
+    /**
+     * Joins the tasks forked by a task, helping to run them meanwhile.
+     *
+     * @param forked the forked tasks, may be null
+     */
+    private static void joinAll(ArrayList<RecursiveAction> forked) {
+        if (forked != null) {
+            for (RecursiveAction task : forked) {
+                task.join();
+            }
+        }
+    }
+
+    /**
+     * Searches a subtree in place on the configuration of its worker. Like
+     * the in-place search of Backtracker it keeps one frame per level in
+     * flat arrays instead of recursing, so a deep tree can not overflow the
+     * stack of a worker. A frame whose remaining choices are handed to
+     * another task simply ends early.
+     */
+    @SuppressWarnings("serial")
+    private static class InPlaceTask extends RecursiveAction {
+        /**
+         * The decision and the choice of every level from the root down to
+         * the subtree, two entries per level
+         */
+        private final int[] path;
+        private final BranchingStrategy strategy;
+        private final Search search;
+        /**
+         * The depth of the subtree in the whole tree
+         */
+        private final int depth;
+        /**
+         * The decision and the range of its choices this task searches, or
+         * a negative first choice to branch on the configuration itself
+         */
+        private final int decision;
+        private final int first;
+        private final int last;
+        private ArrayList<RecursiveAction> forked;
+
+        private ReversibleConfiguration config;
+        private int[] decisions;
+        private int[] choices;
+        private int[] next;
+        private int frames;
+
+        /**
+         * Creates a task searching everything below the end of a path.
+         */
+        InPlaceTask(int[] path, BranchingStrategy strategy, Search search) {
+            this(path, strategy, search, -1, -1, -1);
+        }
+
+        /**
+         * Creates a task searching some of the choices of one decision at
+         * the end of a path.
+         *
+         * @param decision the decision, -1 when the configuration decides
+         * @param first    the first choice to try
+         * @param last     one past the last choice to try
+         */
+        InPlaceTask(int[] path, BranchingStrategy strategy, Search search, int decision, int first, int last) {
+            this.path = path;
+            this.strategy = strategy;
+            this.search = search;
+            this.depth = path.length / 2;
+            this.decision = decision;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected void compute() {
+            config = search.config();
+            for (int step = 0; step < path.length; step += 2) {
+                make(path[step], path[step + 1]);
+            }
+            try {
+                search();
+            } finally {
+                // the worker may run another task on its configuration while joining
+                for (int step = 0; step < path.length; step += 2) {
+                    config.unmake();
+                }
+                config = null;
+            }
+            joinAll(forked);
+        }
+
+        private void make(int decision, int choice) {
+            if (strategy == null) {
+                config.make(choice);
+            } else {
+                config.make(decision, choice);
+            }
+        }
+
+        private void search() {
+            if (search.isOver()) {
+                return;
+            }
+            int capacity = config.decisionCount() + 1;
+            decisions = new int[capacity];
+            choices = new int[capacity];
+            next = new int[capacity];
+            if (first >= 0) {
+                push(decision, first, last);
+            } else if (config.isGoal()) {
+                search.solution.compareAndSet(null, config.snapshot());
+                return;
+            } else {
+                open();
+            }
+            while (frames > 0) {
+                if (search.isOver()) {
+                    unwind();
+                    return;
+                }
+                int top = frames - 1;
+                if (next[top] == choices[top]) {
+                    frames--;
+                    if (frames > 0) {
+                        config.unmake();
+                    }
+                    continue;
+                }
+                int choice = next[top]++;
+                if (next[top] < choices[top] && shouldSplit(depth + top)) {
+                    // the choices after this one go to another task
+                    fork(new InPlaceTask(path(top), strategy, search, decisions[top], next[top], choices[top]));
+                    choices[top] = next[top];
+                }
+                make(decisions[top], choice);
+                if (!config.isValid()) {
+                    METRICS.invalidSuccessor(config.pruneReason());
+                    config.unmake();
+                    continue;
+                }
+                METRICS.validSuccessor();
+                if (config.isGoal()) {
+                    search.solution.compareAndSet(null, config.snapshot());
+                    config.unmake();
+                    unwind();
+                    return;
+                }
+                open();
+            }
+        }
+
+        /**
+         * Pushes a frame for the current configuration, branching on the
+         * decision the strategy picks.
+         */
+        private void open() {
+            int decision = -1;
+            int count;
+            if (strategy == null) {
+                count = config.choices();
+            } else {
+                decision = strategy.select(config);
+                count = decision < 0 ? 0 : config.choices(decision);
+            }
+            METRICS.expanded();
+            METRICS.reached(depth + frames);
+            if (count == 0) {
+                METRICS.deadEnd();
+            }
+            push(decision, 0, count);
+        }
+
+        private void push(int decision, int first, int last) {
+            if (frames == decisions.length) {
+                int capacity = 2 * frames;
+                decisions = Arrays.copyOf(decisions, capacity);
+                choices = Arrays.copyOf(choices, capacity);
+                next = Arrays.copyOf(next, capacity);
+            }
+            decisions[frames] = decision;
+            next[frames] = first;
+            choices[frames] = last;
+            frames++;
+        }
+
+        /**
+         * The path from the root to the configuration of a frame: the path
+         * of this task and the choice made in every frame below it.
+         */
+        private int[] path(int frame) {
+            int[] longer = Arrays.copyOf(path, path.length + 2 * frame);
+            for (int level = 0; level < frame; level++) {
+                longer[path.length + 2 * level] = decisions[level];
+                longer[path.length + 2 * level + 1] = next[level] - 1;
+            }
+            return longer;
+        }
+
+        /**
+         * Reverts the choices of every open frame.
+         */
+        private void unwind() {
+            for (; frames > 1; frames--) {
+                config.unmake();
+            }
+            frames = 0;
+        }
+
+        private void fork(InPlaceTask task) {
+            if (forked == null) {
+                forked = new ArrayList<>();
+            }
+            forked.add(task);
+            task.fork();
+        }
+    }
+
+    /**
+     * Searches a subtree through the successors of a configuration, keeping
+     * a stack of successor iterators instead of recursing. A valid
+     * successor is either pushed or handed to a task of its own.
+     */
+    @SuppressWarnings("serial")
+    private static class SuccessorTask extends RecursiveAction {
+        private final Configuration config;
+        private final Search search;
+        private final int depth;
+        private ArrayList<RecursiveAction> forked;
+
+        SuccessorTask(Configuration config, Search search, int depth) {
+            this.config = config;
+            this.search = search;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            search();
+            joinAll(forked);
+        }
+
+        private void search() {
+            if (search.isOver()) {
+                return;
+            }
+            if (config.isGoal()) {
+                search.solution.compareAndSet(null, config);
+                return;
+            }
+            @SuppressWarnings("unchecked")
+            Iterator<Configuration>[] successors = (Iterator<Configuration>[]) new Iterator<?>[INITIAL_FRAMES];
+            int top = 0;
+            successors[0] = expand(config, depth);
+            while (top >= 0) {
+                if (search.isOver()) {
+                    return;
+                }
+                if (!successors[top].hasNext()) {
+                    successors[top--] = null;
+                    continue;
+                }
+                Configuration child = successors[top].next();
+                if (!child.isValid()) {
+                    METRICS.invalidSuccessor(child.pruneReason());
+                    continue;
+                }
+                METRICS.validSuccessor();
+                if (child.isGoal()) {
+                    search.solution.compareAndSet(null, child);
+                    return;
+                }
+                if (shouldSplit(depth + top + 1)) {
+                    SuccessorTask task = new SuccessorTask(child, search, depth + top + 1);
+                    if (forked == null) {
+                        forked = new ArrayList<>();
+                    }
+                    forked.add(task);
+                    task.fork();
+                    continue;
+                }
+                if (++top == successors.length) {
+                    successors = Arrays.copyOf(successors, 2 * top);
+                }
+                successors[top] = expand(child, depth + top);
+            }
+        }
+
+        private static Iterator<Configuration> expand(Configuration config, int depth) {
+            Iterator<Configuration> successors = config.successors();
+            METRICS.expanded();
+            METRICS.reached(depth);
+            if (!successors.hasNext()) {
+                METRICS.deadEnd();
+            }
+            return successors;
+        }
+    }
+}
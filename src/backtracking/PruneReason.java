@@ -0,0 +1,26 @@
+package backtracking;
+
+/**
+ * Why a configuration was found not to be valid, as counted by
+ * SolverMetrics.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public enum PruneReason {
+    /**
+     * A numbered pillar has more lasers around it than its number
+     */
+    PILLAR_OVER_COUNT,
+    /**
+     * A numbered pillar has too few open neighbors left to reach its number
+     */
+    PILLAR_UNREACHABLE,
+    /**
+     * An uncovered cell has no open cell left that could light it
+     */
+    DEAD_CELL,
+    /**
+     * Two lasers can see each other
+     */
+    BEAM_CONFLICT
+}
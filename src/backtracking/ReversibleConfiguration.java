@@ -0,0 +1,66 @@
+package backtracking;
+
+/**
+ * A configuration that can be searched in place. Instead of handing out
+ * copies of itself as successors, it applies one choice at a time and
+ * reverts it afterwards, so a single instance is enough for a whole
+ * search.
+ * <p>
+ * The next decision is either left to the configuration, through
+ * choices() and make(choice), or picked among all open decisions by a
+ * BranchingStrategy, through choices(decision) and make(decision, choice).
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public interface ReversibleConfiguration extends Configuration {
+    /**
+     * How many choices the next decision has.
+     *
+     * @return the number of choices, 0 if nothing is left to decide
+     */
+    int choices();
+
+    /**
+     * Apply one choice of the next decision to this configuration.
+     *
+     * @param choice the choice, from 0 to choices() - 1
+     */
+    void make(int choice);
+
+    /**
+     * How many decisions a branching strategy can pick from. Decisions are
+     * numbered from 0 to decisionCount() - 1.
+     *
+     * @return the number of decisions
+     */
+    int decisionCount();
+
+    /**
+     * How many choices a given decision has right now.
+     *
+     * @param decision the decision
+     * @return the number of choices, 0 if the decision is not open
+     */
+    int choices(int decision);
+
+    /**
+     * Apply one choice of a given decision to this configuration.
+     *
+     * @param decision the decision, which must be open
+     * @param choice   the choice, from 0 to choices(decision) - 1
+     */
+    void make(int decision, int choice);
+
+    /**
+     * Revert the most recent make that has not been reverted yet.
+     */
+    void unmake();
+
+    /**
+     * Copy the current state into a new, independent configuration that can
+     * be searched on its own.
+     *
+     * @return the copy
+     */
+    ReversibleConfiguration snapshot();
+}
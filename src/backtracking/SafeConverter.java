@@ -0,0 +1,67 @@
+package backtracking;
+
+import model.LasersModel;
+import model.SafeArchive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Packs safes in the text format into a binary SafeArchive, solving them
+ * on the way if asked to. It is run on the command line as follows:<br>
+ * <br>
+ *     java SafeConverter [-solve] archive (directory | safe-file)...<br>
+ * <br>
+ * Directories are searched for safes recursively. Files that are not
+ * safes are skipped with a message.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class SafeConverter {
+
+    public static void main(String[] args) throws IOException {
+        boolean solve = args.length > 0 && args[0].equals("-solve");
+        int first = solve ? 1 : 0;
+        if (args.length < first + 2) {
+            System.out.println("Usage: java SafeConverter [-solve] archive (directory | safe-file)...");
+            return;
+        }
+        List<Path> safes = new ArrayList<>();
+        for (int i = first + 1; i < args.length; i++) {
+            try (Stream<Path> files = Files.walk(Paths.get(args[i]))) {
+                safes.addAll(files.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+            }
+        }
+
+        double start = System.currentTimeMillis();
+        Solver solver = solve ? new BacktrackingSolver(false) : null;
+        int packed = 0;
+        try (SafeArchive.Writer archive = new SafeArchive.Writer(Paths.get(args[first]))) {
+            for (Path file : safes) {
+                LasersModel safe;
+                try {
+                    safe = new LasersModel(file.toString());
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Skipped " + file + ": " + e.getMessage());
+                    continue;
+                }
+                LasersModel solution = null;
+                if (solver != null) {
+                    Optional<Configuration> sol = solver.solve(safe);
+                    solution = sol.isPresent() ? (LasersModel) sol.get() : null;
+                }
+                archive.add(safe, solution);
+                packed++;
+            }
+        }
+        System.out.println("Packed " + packed + " safes in " +
+                (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+    }
+}
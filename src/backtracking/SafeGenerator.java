@@ -0,0 +1,210 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Makes random safes with exactly one solution. Pillars are scattered over
+ * an empty room, lasers are placed on random cells until every cell is
+ * lit, and every pillar gets the number of lasers around it. Safes that
+ * still have more than one solution are thrown away. Numbers are then
+ * taken off one at a time, in random order, as long as the backtracker
+ * still finds exactly one solution, so what is left is a safe where every
+ * number is needed.
+ * <p>
+ * Every safe is made from a seed of its own, so the same seed always gives
+ * the same safe, no matter how many threads share the work. It is run on
+ * the command line as follows:<br>
+ * <br>
+ *     java SafeGenerator rows cols density count directory [threads] [seed]<br>
+ * <br>
+ * where density is the share of cells that are pillars. The safes are
+ * written to the directory as rowsxcols-n.txt in the usual safe format.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class SafeGenerator {
+
+    /**
+     * The number of layouts tried for one safe before giving up
+     */
+    private static final int MAX_ATTEMPTS = 1000;
+
+    /**
+     * Spreads the safe numbers over the seeds, the golden ratio increment
+     * of SplittableRandom
+     */
+    private static final long SEED_STEP = 0x9E3779B97F4A7C15L;
+
+    private final int height;
+    private final int width;
+    private final double density;
+
+    /**
+     * Creates a generator.
+     *
+     * @param height  the number of rows of every safe
+     * @param width   the number of columns of every safe
+     * @param density the share of cells that are pillars, between 0 and 1
+     */
+    public SafeGenerator(int height, int width, double density) {
+        if (height < 1 || width < 1 || density < 0 || density > 1) {
+            throw new IllegalArgumentException("Bad safe size or density");
+        }
+        this.height = height;
+        this.width = width;
+        this.density = density;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 5 || args.length > 7) {
+            System.out.println("Usage: java SafeGenerator rows cols density count directory [threads] [seed]");
+            return;
+        }
+        int rows = Integer.parseInt(args[0]);
+        int cols = Integer.parseInt(args[1]);
+        SafeGenerator generator = new SafeGenerator(rows, cols, Double.parseDouble(args[2]));
+        int count = Integer.parseInt(args[3]);
+        Path dir = Paths.get(args[4]);
+        int threads = args.length >= 6 ? Integer.parseInt(args[5]) : Runtime.getRuntime().availableProcessors();
+        long seed = args.length == 7 ? Long.parseLong(args[6]) : System.nanoTime();
+        Files.createDirectories(dir);
+
+        double start = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Path>> written = new ArrayList<>(count);
+            for (int n = 0; n < count; n++) {
+                long safeSeed = seed + n * SEED_STEP;
+                Path file = dir.resolve(rows + "x" + cols + "-" + n + ".txt");
+                written.add(pool.submit(() -> {
+                    write(generator.generate(safeSeed), file);
+                    return file;
+                }));
+            }
+            for (Future<Path> file : written) {
+                System.out.println(file.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("Elapsed time: " +
+                (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+    }
+
+    /**
+     * Makes one safe with exactly one solution.
+     *
+     * @param seed decides everything about the safe
+     * @return the safe, without lasers
+     * @throws IllegalStateException if no layout with a single solution
+     *                               turns up, which happens when there are
+     *                               too few pillars to pin the lasers down
+     */
+    public LasersModel generate(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        int cells = height * width;
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            char[] grid = new char[cells];
+            for (int cell = 0; cell < cells; cell++) {
+                grid[cell] = random.nextDouble() < density ? 'X' : LasersModel.EMPTY;
+            }
+
+            // lasers on random cells until everything is lit
+            LasersModel lit = new LasersModel(height, width, grid);
+            for (int cell : shuffled(cells, random)) {
+                if (lit.getGrid(cell / width, cell % width) == LasersModel.EMPTY) {
+                    lit.add(cell / width, cell % width);
+                }
+            }
+            int pillars = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (grid[cell] == 'X') {
+                    grid[cell] = (char) ('0' + lit.checkNeighbors(cell / width, cell % width));
+                    pillars++;
+                }
+            }
+            if (!isUnique(grid)) {
+                continue;
+            }
+
+            // take off every number the solution does not depend on
+            int[] numbered = new int[pillars];
+            int next = 0;
+            for (int cell : shuffled(cells, random)) {
+                if (grid[cell] != LasersModel.EMPTY) {
+                    numbered[next++] = cell;
+                }
+            }
+            for (int cell : numbered) {
+                char number = grid[cell];
+                grid[cell] = 'X';
+                if (!isUnique(grid)) {
+                    grid[cell] = number;
+                }
+            }
+            return new LasersModel(height, width, grid);
+        }
+        throw new IllegalStateException("No safe with a single solution in " + MAX_ATTEMPTS + " attempts");
+    }
+
+    /**
+     * Does the safe have exactly one solution?
+     */
+    private boolean isUnique(char[] grid) {
+        LasersModel model = new LasersModel(height, width, grid);
+        return model.isValid() && new Backtracker(false, new MostConstrainedStrategy()).count(model, 2) == 1;
+    }
+
+    /**
+     * The numbers 0 to n - 1 in random order.
+     */
+    private static int[] shuffled(int n, SplittableRandom random) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    /**
+     * Writes a safe in the format LasersModel reads.
+     *
+     * @param model the safe
+     * @param file  the file to write
+     * @throws IOException if the file can not be written
+     */
+    public static void write(LasersModel model, Path file) throws IOException {
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+            out.println(model.getHeight() + " " + model.getWidth());
+            for (int r = 0; r < model.getHeight(); r++) {
+                StringBuilder row = new StringBuilder(2 * model.getWidth());
+                for (int c = 0; c < model.getWidth(); c++) {
+                    if (c > 0) {
+                        row.append(' ');
+                    }
+                    row.append(model.getGrid(r, c));
+                }
+                out.println(row);
+            }
+        }
+    }
+}
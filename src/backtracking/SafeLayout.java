@@ -0,0 +1,222 @@
+package backtracking;
+
+import model.LasersModel;
+
+/**
+ * The fixed layout of a safe as the encodings of the DLX and SAT solvers
+ * see it: which cells are pillars, the horizontal and vertical runs of
+ * free cells between them, and the free neighbors of each pillar.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+class SafeLayout {
+
+    final int height;
+    final int width;
+    final int cells;
+    /**
+     * The pillar characters, 0 for a free cell
+     */
+    final char[] pillar;
+    /**
+     * The row run and the column run of each free cell, -1 for a pillar
+     */
+    final int[] rowRun;
+    final int[] colRun;
+    /**
+     * The number of runs, row runs numbered first
+     */
+    final int runs;
+    /**
+     * The free cells of every run
+     */
+    final int[][] runCells;
+
+    SafeLayout(LasersModel model) {
+        height = model.getHeight();
+        width = model.getWidth();
+        cells = height * width;
+        pillar = new char[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            char grid = model.getGrid(cell / width, cell % width);
+            if ("01234X".indexOf(grid) != -1) {
+                pillar[cell] = grid;
+            }
+        }
+
+        rowRun = new int[cells];
+        colRun = new int[cells];
+        int count = 0;
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                int cell = r * width + c;
+                if (isPillar(cell)) {
+                    rowRun[cell] = -1;
+                } else {
+                    if (c == 0 || isPillar(cell - 1)) {
+                        count++;
+                    }
+                    rowRun[cell] = count - 1;
+                }
+            }
+        }
+        for (int c = 0; c < width; c++) {
+            for (int r = 0; r < height; r++) {
+                int cell = r * width + c;
+                if (isPillar(cell)) {
+                    colRun[cell] = -1;
+                } else {
+                    if (r == 0 || isPillar(cell - width)) {
+                        count++;
+                    }
+                    colRun[cell] = count - 1;
+                }
+            }
+        }
+        runs = count;
+
+        int[] length = new int[runs];
+        for (int cell = 0; cell < cells; cell++) {
+            if (!isPillar(cell)) {
+                length[rowRun[cell]]++;
+                length[colRun[cell]]++;
+            }
+        }
+        runCells = new int[runs][];
+        for (int run = 0; run < runs; run++) {
+            runCells[run] = new int[length[run]];
+            length[run] = 0;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (!isPillar(cell)) {
+                runCells[rowRun[cell]][length[rowRun[cell]]++] = cell;
+                runCells[colRun[cell]][length[colRun[cell]]++] = cell;
+            }
+        }
+    }
+
+    boolean isPillar(int cell) {
+        return pillar[cell] != 0;
+    }
+
+    /**
+     * Is the cell a pillar with a number on it?
+     */
+    boolean isNumbered(int cell) {
+        return pillar[cell] >= '0' && pillar[cell] <= '4';
+    }
+
+    /**
+     * The number on a numbered pillar
+     */
+    int need(int cell) {
+        return pillar[cell] - '0';
+    }
+
+    /**
+     * The neighbors of a cell that are pillars, or that are free, in the
+     * order left, right, up, down
+     *
+     * @param cell    the cell
+     * @param pillars true for the pillar neighbors, false for the free ones
+     * @return the neighbors
+     */
+    int[] neighbors(int cell, boolean pillars) {
+        int r = cell / width;
+        int c = cell % width;
+        int[] found = new int[4];
+        int count = 0;
+        if (c > 0 && isPillar(cell - 1) == pillars) found[count++] = cell - 1;
+        if (c < width - 1 && isPillar(cell + 1) == pillars) found[count++] = cell + 1;
+        if (r > 0 && isPillar(cell - width) == pillars) found[count++] = cell - width;
+        if (r < height - 1 && isPillar(cell + width) == pillars) found[count++] = cell + width;
+        int[] result = new int[count];
+        System.arraycopy(found, 0, result, 0, count);
+        return result;
+    }
+
+    /**
+     * Splits the safe into the parts that can be solved on their own. Two
+     * free cells are in the same part if they share a run, since a laser in
+     * one lights or sees the other, or if they are next to the same
+     * numbered pillar, since they share its count. A numbered pillar is in
+     * the part of its free neighbors.
+     *
+     * @return the part of every free cell and numbered pillar, numbered from
+     * 0 in the order of their first cell, and -1 for every other pillar
+     */
+    int[] components() {
+        int[] parent = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            parent[cell] = cell;
+        }
+        for (int run = 0; run < runs; run++) {
+            for (int k = 1; k < runCells[run].length; k++) {
+                union(parent, runCells[run][0], runCells[run][k]);
+            }
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            if (isNumbered(cell)) {
+                for (int other : neighbors(cell, false)) {
+                    union(parent, cell, other);
+                }
+            }
+        }
+
+        int[] part = new int[cells];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (isPillar(cell) && !isNumbered(cell)) {
+                part[cell] = -1;
+            } else {
+                int root = find(parent, cell);
+                part[cell] = root == cell ? count++ : part[root];
+            }
+        }
+        return part;
+    }
+
+    /**
+     * The representative of the set of a cell, halving the path to it on
+     * the way
+     */
+    private static int find(int[] parent, int cell) {
+        while (parent[cell] != cell) {
+            parent[cell] = parent[parent[cell]];
+            cell = parent[cell];
+        }
+        return cell;
+    }
+
+    /**
+     * Merges the sets of two cells, keeping the smaller cell as the
+     * representative
+     */
+    private static void union(int[] parent, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        if (a < b) {
+            parent[b] = a;
+        } else if (b < a) {
+            parent[a] = b;
+        }
+    }
+
+    /**
+     * Builds the solved safe from the lasers a solver found.
+     *
+     * @param model  the safe that was solved, which is not changed
+     * @param lasers which cells get a laser
+     * @return a copy of the safe with exactly those lasers and their beams
+     */
+    LasersModel solved(LasersModel model, boolean[] lasers) {
+        LasersModel solution = new LasersModel(model);
+        solution.reset();
+        for (int cell = 0; cell < cells; cell++) {
+            if (lasers[cell]) {
+                solution.add(cell / width, cell % width);
+            }
+        }
+        return solution;
+    }
+}
@@ -12,27 +12,58 @@ import java.util.Optional;
  * @author Sean Strout @ RIT CS
  */
 public class SafeSolver {
+
+    /**
+     * The number of entries in the transposition table of the table solver
+     */
+    private static final int TABLE_SIZE = 1 << 20;
+
+    /**
+     * The prefix of a solver name that solves the parts of a safe separately
+     */
+    private static final String SPLIT = "split:";
+
     public static void main(String[] args) throws FileNotFoundException {
-        if (args.length != 2) {
-            System.out.println("Usage: java SafeSolver safe.in debug");
+        if (args.length < 2 || args.length > 4) {
+            System.out.println("Usage: java SafeSolver safe.in debug [[split:]backtrack|parallel|threads|table|dlx|sat]"
+                    + " [first|all|count|unique]");
         } else {
+            // make the search counters visible to JMX consoles
+            SolverMetrics.register();
+
             // construct the initial configuration from the file
-            Configuration init = new LasersModel(args[0]);
+            LasersModel init = new LasersModel(args[0]);
 
-            // create the backtracker with the debug flag
+            // create the solver with the debug flag
             boolean debug = args[1].equals("true");
-            Backtracker bt = new Backtracker(debug);
+            Solver solver = create(args.length >= 3 ? args[2] : "backtrack", debug);
+            String mode = args.length == 4 ? args[3] : "first";
+            if (!mode.equals("first")) {
+                if (!(solver instanceof EnumeratingSolver)) {
+                    System.out.println("Only the backtracking solvers can list or count solutions.");
+                } else {
+                    enumerate((EnumeratingSolver) solver, init, mode);
+                }
+                return;
+            }
 
             // start the clock
             double start = System.currentTimeMillis();
 
             // attempt to solve the puzzle
-            Optional<Configuration> sol = bt.solve(init);
+            Optional<Configuration> sol = solver.solve(init);
 
             // compute the elapsed time
             System.out.println("Elapsed time: " +
                     (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
 
+            if (debug && solver instanceof BacktrackingSolver && ((BacktrackingSolver) solver).getTable() != null) {
+                System.out.println("Transposition table: " + ((BacktrackingSolver) solver).getTable());
+            }
+            if (debug) {
+                System.out.println("Search: " + SolverMetrics.getInstance());
+            }
+
             // indicate whether there was a solution, or not
             if (sol.isPresent()) {
                 System.out.println("Solution:\n" + sol.get());
@@ -42,4 +73,95 @@ public class SafeSolver {
             }
         }
     }
+
+    /**
+     * Lists, counts or checks the uniqueness of the solutions of a safe
+     *
+     * @param solver the solver
+     * @param init   the safe
+     * @param mode   all to print every solution, count to count them,
+     *               unique to check there is exactly one
+     */
+    private static void enumerate(EnumeratingSolver solver, LasersModel init, String mode) {
+        double start = System.currentTimeMillis();
+        long count;
+        switch (mode) {
+            case "all":
+                count = solver.solutions(init)
+                        .peek(sol -> System.out.println("Solution:\n" + sol))
+                        .count();
+                break;
+            case "count":
+                count = solver.count(init, Long.MAX_VALUE);
+                break;
+            case "unique":
+                count = solver.count(init, 2);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown mode: " + mode);
+        }
+        System.out.println("Elapsed time: " +
+                (System.currentTimeMillis() - start) / 1000.0 + " seconds.");
+        if (mode.equals("unique")) {
+            System.out.println(count == 0 ? "No solution!" : count == 1 ? "Unique solution." : "More than one solution!");
+        } else {
+            System.out.println("Solutions: " + count);
+        }
+    }
+
+    /**
+     * Creates a solver by name, free to use every core.
+     *
+     * @param name  the name of the solver
+     * @param debug Is debugging output enabled?
+     * @return the solver
+     * @throws IllegalArgumentException if the name is unknown
+     * @see #create(String, boolean, int)
+     */
+    public static Solver create(String name, boolean debug) {
+        return create(name, debug, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a solver by name: backtrack for the fail-first backtracker,
+     * parallel for the same on every core it may use, a number for the
+     * same on that many threads, table for the backtracker with a
+     * transposition table, dlx for dancing links and sat for the SAT
+     * engine. Any of them can be prefixed with split: to solve the
+     * independent parts of the safe separately on the cores it may use,
+     * each part with its own solver on one thread.
+     *
+     * @param name  the name of the solver
+     * @param debug Is debugging output enabled?
+     * @param cores the number of threads parallel and split: may use
+     * @return the solver
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Solver create(String name, boolean debug, int cores) {
+        if (name.startsWith(SPLIT)) {
+            String part = name.substring(SPLIT.length());
+            // fail now on an unknown name, not once per part
+            create(part, debug, 1).close();
+            return new ComponentSolver(() -> create(part, debug, 1), cores);
+        }
+        switch (name) {
+            case "backtrack":
+                return new BacktrackingSolver(debug);
+            case "parallel":
+                return new BacktrackingSolver(debug, new MostConstrainedStrategy(), cores);
+            case "table":
+                return new BacktrackingSolver(debug, new MostConstrainedStrategy(), 1,
+                        new TranspositionTable(TABLE_SIZE));
+            case "dlx":
+                return new DlxSolver();
+            case "sat":
+                return new SatSolver();
+            default:
+                try {
+                    return new BacktrackingSolver(debug, new MostConstrainedStrategy(), Integer.parseInt(name));
+                } catch (NumberFormatException nfe) {
+                    throw new IllegalArgumentException("Unknown solver: " + name);
+                }
+        }
+    }
 }
@@ -0,0 +1,161 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.util.ArrayList;
+import java.util.Optional;
+
+/**
+ * Solves a safe by handing a CNF encoding of it to the CdclEngine.
+ * <p>
+ * There is one variable per free cell, true when it holds a laser. Every
+ * run of free cells between pillars gets an at-most-one constraint, so no
+ * two lasers see each other. Every free cell gets a clause asking for a
+ * laser somewhere in its row run or column run, so it is lit. The number
+ * on a pillar is a cardinality constraint over at most four neighbors,
+ * written out as one clause per forbidden combination of them.
+ * <p>
+ * Every solve encodes into state of its own, so one solver can serve
+ * several threads at once.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class SatSolver implements Solver {
+
+    /**
+     * Runs up to this long get pairwise at-most-one clauses, longer ones
+     * the sequential counter encoding
+     */
+    private static final int PAIRWISE_LIMIT = 6;
+
+    /**
+     * Try find a solution, if one exists, for a given safe. Lasers already
+     * on the safe are kept.
+     *
+     * @param model the safe, which is not changed
+     * @return a solved copy of the safe, or empty if no solution
+     */
+    @Override
+    public Optional<Configuration> solve(LasersModel model) {
+        if (!model.isValid()) {
+            return Optional.empty();
+        }
+        SafeLayout layout = new SafeLayout(model);
+        int cells = layout.cells;
+        Encoding cnf = new Encoding();
+
+        // the laser variable of every free cell
+        int[] laser = new int[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            if (!layout.isPillar(cell)) {
+                laser[cell] = ++cnf.variables;
+                if (model.getGrid(cell / layout.width, cell % layout.width) == LasersModel.LASER) {
+                    cnf.clauses.add(new int[]{laser[cell]});
+                }
+            }
+        }
+
+        // no two lasers in a run
+        for (int run = 0; run < layout.runs; run++) {
+            int[] runCells = layout.runCells[run];
+            int[] literals = new int[runCells.length];
+            for (int k = 0; k < runCells.length; k++) {
+                literals[k] = laser[runCells[k]];
+            }
+            cnf.atMostOne(literals);
+        }
+
+        // every free cell lit by its row run or its column run
+        for (int cell = 0; cell < cells; cell++) {
+            if (layout.isPillar(cell)) {
+                continue;
+            }
+            int[] row = layout.runCells[layout.rowRun[cell]];
+            int[] col = layout.runCells[layout.colRun[cell]];
+            int[] clause = new int[row.length + col.length - 1];
+            int size = 0;
+            for (int other : row) {
+                clause[size++] = laser[other];
+            }
+            for (int other : col) {
+                if (other != cell) {
+                    clause[size++] = laser[other];
+                }
+            }
+            cnf.clauses.add(clause);
+        }
+
+        // exactly the number on each pillar among its free neighbors
+        for (int cell = 0; cell < cells; cell++) {
+            if (!layout.isNumbered(cell)) {
+                continue;
+            }
+            int[] around = layout.neighbors(cell, false);
+            int need = layout.need(cell);
+            for (int pattern = 0; pattern < 1 << around.length; pattern++) {
+                if (Integer.bitCount(pattern) == need) {
+                    continue;
+                }
+                int[] clause = new int[around.length];
+                for (int k = 0; k < around.length; k++) {
+                    clause[k] = (pattern & (1 << k)) != 0 ? -laser[around[k]] : laser[around[k]];
+                }
+                cnf.clauses.add(clause);
+            }
+        }
+
+        CdclEngine engine = new CdclEngine(cnf.variables);
+        for (int[] clause : cnf.clauses) {
+            engine.addClause(clause);
+        }
+        if (!engine.solve()) {
+            return Optional.empty();
+        }
+        boolean[] lasers = new boolean[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            lasers[cell] = !layout.isPillar(cell) && engine.value(laser[cell]);
+        }
+        return Optional.of(layout.solved(model, lasers));
+    }
+
+    /**
+     * The CNF of one solve as it is built
+     */
+    private static class Encoding {
+        private final ArrayList<int[]> clauses = new ArrayList<>();
+        private int variables;
+
+        /**
+         * Adds clauses allowing at most one of the literals to be true.
+         *
+         * @param literals the literals
+         */
+        private void atMostOne(int[] literals) {
+            int n = literals.length;
+            if (n <= PAIRWISE_LIMIT) {
+                for (int i = 0; i < n; i++) {
+                    for (int j = i + 1; j < n; j++) {
+                        clauses.add(new int[]{-literals[i], -literals[j]});
+                    }
+                }
+                return;
+            }
+            // sequential counter: s[i] is true once one of the first i + 1 literals is
+            int first = variables + 1;
+            variables += n - 1;
+            for (int i = 0; i < n; i++) {
+                int sum = first + i;
+                int previous = first + i - 1;
+                if (i < n - 1) {
+                    clauses.add(new int[]{-literals[i], sum});
+                }
+                if (i > 0) {
+                    clauses.add(new int[]{-literals[i], -previous});
+                    if (i < n - 1) {
+                        clauses.add(new int[]{-previous, sum});
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package backtracking;
+
+import model.LasersModel;
+
+import java.util.Optional;
+
+/**
+ * A way of solving a safe. The UIs and SafeSolver only talk to this
+ * interface, so the engine behind it can be swapped.
+ * <p>
+ * The solvers give up when the thread they run on is interrupted, and
+ * report no solution.
+ * <p>
+ * A solver that keeps threads between solves lets them go when closed.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public interface Solver extends AutoCloseable {
+    /**
+     * Try find a solution, if one exists, for a given safe. Lasers already
+     * on the safe are kept.
+     *
+     * @param model the safe, which is not changed
+     * @return a solved copy of the safe, or empty if no solution
+     */
+    Optional<Configuration> solve(LasersModel model);
+
+    /**
+     * Lets go of the threads of the solver, if it has any.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,234 @@
+package backtracking;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters describing the searches of every backtracker in the JVM, shared
+ * by all of them and readable over JMX once registered. The counters are
+ * striped, so searches on many threads can bump them without contending
+ * on a single memory location, which keeps them cheap enough to leave on.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+
+    /**
+     * The name the metrics are registered under
+     */
+    public static final String OBJECT_NAME = "backtracking:type=SolverMetrics";
+
+    private static final SolverMetrics INSTANCE = new SolverMetrics();
+
+    private final LongAdder nodesExpanded = new LongAdder();
+    private final LongAdder validSuccessors = new LongAdder();
+    private final LongAdder invalidSuccessors = new LongAdder();
+    /**
+     * The invalid successors by the reason they gave, indexed by PruneReason.ordinal()
+     */
+    private final LongAdder[] prunes = new LongAdder[PruneReason.values().length];
+    private final LongAdder tableCutoffs = new LongAdder();
+    private final LongAdder deadEnds = new LongAdder();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder solves = new LongAdder();
+    private final LongAdder solvesInFlight = new LongAdder();
+    private final LongAdder solveNanos = new LongAdder();
+    private final LongAccumulator maxSolveNanos = new LongAccumulator(Math::max, 0);
+
+    private SolverMetrics() {
+        for (int i = 0; i < prunes.length; i++) {
+            prunes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * The metrics every backtracker reports to.
+     *
+     * @return the shared metrics
+     */
+    public static SolverMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the shared metrics with the platform MBean server, under
+     * OBJECT_NAME. Registering more than once does nothing.
+     *
+     * @return true if the metrics are registered, false if the server
+     * refused them
+     */
+    public static synchronized boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(INSTANCE, name);
+            }
+            return true;
+        } catch (JMException | SecurityException e) {
+            return false;
+        }
+    }
+
+    void expanded() {
+        nodesExpanded.increment();
+    }
+
+    void validSuccessor() {
+        validSuccessors.increment();
+    }
+
+    /**
+     * Counts a successor that was not valid.
+     *
+     * @param reason why, or null if it did not say
+     */
+    void invalidSuccessor(PruneReason reason) {
+        invalidSuccessors.increment();
+        if (reason != null) {
+            prunes[reason.ordinal()].increment();
+        }
+    }
+
+    void tableCutoff() {
+        tableCutoffs.increment();
+    }
+
+    void deadEnd() {
+        deadEnds.increment();
+    }
+
+    void reached(int depth) {
+        maxDepth.accumulate(depth);
+    }
+
+    /**
+     * Marks the start of a solve.
+     *
+     * @return the time it started, to hand to solveFinished
+     */
+    long solveStarted() {
+        solvesInFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * Marks the end of a solve, whether it found a solution or not.
+     *
+     * @param start the time solveStarted returned
+     */
+    void solveFinished(long start) {
+        long nanos = System.nanoTime() - start;
+        solvesInFlight.decrement();
+        solves.increment();
+        solveNanos.add(nanos);
+        maxSolveNanos.accumulate(nanos);
+    }
+
+    @Override
+    public long getNodesExpanded() {
+        return nodesExpanded.sum();
+    }
+
+    @Override
+    public long getValidSuccessors() {
+        return validSuccessors.sum();
+    }
+
+    @Override
+    public long getInvalidSuccessors() {
+        return invalidSuccessors.sum();
+    }
+
+    @Override
+    public long getPillarOverCountPrunes() {
+        return prunes[PruneReason.PILLAR_OVER_COUNT.ordinal()].sum();
+    }
+
+    @Override
+    public long getPillarUnreachablePrunes() {
+        return prunes[PruneReason.PILLAR_UNREACHABLE.ordinal()].sum();
+    }
+
+    @Override
+    public long getDeadCellPrunes() {
+        return prunes[PruneReason.DEAD_CELL.ordinal()].sum();
+    }
+
+    @Override
+    public long getBeamConflictPrunes() {
+        return prunes[PruneReason.BEAM_CONFLICT.ordinal()].sum();
+    }
+
+    @Override
+    public long getTableCutoffs() {
+        return tableCutoffs.sum();
+    }
+
+    @Override
+    public long getDeadEnds() {
+        return deadEnds.sum();
+    }
+
+    @Override
+    public long getMaxDepth() {
+        return maxDepth.get();
+    }
+
+    @Override
+    public long getSolves() {
+        return solves.sum();
+    }
+
+    @Override
+    public long getSolvesInFlight() {
+        return solvesInFlight.sum();
+    }
+
+    @Override
+    public double getTotalSolveMillis() {
+        return solveNanos.sum() / 1e6;
+    }
+
+    @Override
+    public double getMeanSolveMillis() {
+        long count = solves.sum();
+        return count == 0 ? 0 : solveNanos.sum() / 1e6 / count;
+    }
+
+    @Override
+    public double getMaxSolveMillis() {
+        return maxSolveNanos.get() / 1e6;
+    }
+
+    @Override
+    public void reset() {
+        nodesExpanded.reset();
+        validSuccessors.reset();
+        invalidSuccessors.reset();
+        for (LongAdder prune : prunes) {
+            prune.reset();
+        }
+        tableCutoffs.reset();
+        deadEnds.reset();
+        maxDepth.reset();
+        solves.reset();
+        solveNanos.reset();
+        maxSolveNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d nodes expanded, %d valid and %d invalid successors (%d pillar over-count,"
+                        + " %d pillar unreachable, %d dead cell, %d beam conflict), %d table cutoffs, %d dead ends,"
+                        + " max depth %d, %d solves (%d running) taking %.3f ms on average and %.3f ms at most",
+                getNodesExpanded(), getValidSuccessors(), getInvalidSuccessors(), getPillarOverCountPrunes(),
+                getPillarUnreachablePrunes(), getDeadCellPrunes(), getBeamConflictPrunes(), getTableCutoffs(),
+                getDeadEnds(), getMaxDepth(), getSolves(), getSolvesInFlight(), getMeanSolveMillis(),
+                getMaxSolveMillis());
+    }
+}
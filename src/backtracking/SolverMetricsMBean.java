@@ -0,0 +1,95 @@
+package backtracking;
+
+/**
+ * The management interface of SolverMetrics, the attributes a JMX console
+ * shows for it.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public interface SolverMetricsMBean {
+
+    /**
+     * @return the number of configurations whose successors were generated
+     */
+    long getNodesExpanded();
+
+    /**
+     * @return the number of successors that were valid
+     */
+    long getValidSuccessors();
+
+    /**
+     * @return the number of successors pruned because they were not valid
+     */
+    long getInvalidSuccessors();
+
+    /**
+     * @return the number of successors pruned because a numbered pillar had
+     * more lasers than its number
+     */
+    long getPillarOverCountPrunes();
+
+    /**
+     * @return the number of successors pruned because a numbered pillar
+     * could no longer get as many lasers as its number
+     */
+    long getPillarUnreachablePrunes();
+
+    /**
+     * @return the number of successors pruned because an uncovered cell
+     * could no longer be lit
+     */
+    long getDeadCellPrunes();
+
+    /**
+     * @return the number of successors pruned because two lasers could see
+     * each other
+     */
+    long getBeamConflictPrunes();
+
+    /**
+     * @return the number of configurations pruned because a transposition
+     * table knew them to have no solution
+     */
+    long getTableCutoffs();
+
+    /**
+     * @return the number of expanded configurations without any successors
+     */
+    long getDeadEnds();
+
+    /**
+     * @return the deepest level any search has reached
+     */
+    long getMaxDepth();
+
+    /**
+     * @return the number of solves finished
+     */
+    long getSolves();
+
+    /**
+     * @return the number of solves running right now
+     */
+    long getSolvesInFlight();
+
+    /**
+     * @return the time spent in all finished solves, in milliseconds
+     */
+    double getTotalSolveMillis();
+
+    /**
+     * @return the average time of a finished solve, in milliseconds
+     */
+    double getMeanSolveMillis();
+
+    /**
+     * @return the time of the longest finished solve, in milliseconds
+     */
+    double getMaxSolveMillis();
+
+    /**
+     * Sets every counter but the solves in flight back to zero.
+     */
+    void reset();
+}
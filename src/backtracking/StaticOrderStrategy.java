@@ -0,0 +1,21 @@
+package backtracking;
+
+/**
+ * Branches on the open decision with the lowest number, so decisions are
+ * always taken in the same fixed order.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class StaticOrderStrategy implements BranchingStrategy {
+
+    @Override
+    public int select(ReversibleConfiguration config) {
+        int count = config.decisionCount();
+        for (int decision = 0; decision < count; decision++) {
+            if (config.choices(decision) > 0) {
+                return decision;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,152 @@
+package backtracking;
+
+import java.util.Arrays;
+
+/**
+ * A fixed size table of configurations known to have no solution below
+ * them, looked up by their hash. The table is split into buckets of four
+ * entries. When a bucket is full the entry stored deepest in the search is
+ * evicted, since it stands for the smallest subtree and is the cheapest to
+ * search again.
+ * <p>
+ * Only the hash of a configuration is kept, so two configurations whose
+ * 64 bit hashes collide are taken to be the same. The odds of that are
+ * negligible at the sizes the table is meant for. The hashes only cover
+ * the state of the cells, so a table is only good for searches of one
+ * safe and has to be cleared before searching another.
+ *
+ * @author Elijah Bosley, Stefan Marchhart
+ */
+public class TranspositionTable {
+
+    private static final int BUCKET = 4;
+
+    /**
+     * The hashes stored, 0 for an empty slot
+     */
+    private final long[] keys;
+    /**
+     * The depth each hash was stored at
+     */
+    private final int[] depths;
+    private final int mask;
+
+    private long hits;
+    private long misses;
+    private long stores;
+    private long evictions;
+
+    /**
+     * Creates an empty table.
+     *
+     * @param capacity the most entries the table holds, rounded up to a
+     *                 power of two of at least one bucket
+     */
+    public TranspositionTable(int capacity) {
+        int size = BUCKET;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        keys = new long[size];
+        depths = new int[size];
+        mask = size - BUCKET;
+    }
+
+    /**
+     * Checks whether a configuration is known to have no solution below it.
+     *
+     * @param hash the hash of the configuration
+     * @return true if it was stored as failed and is still in the table
+     */
+    public boolean isFailed(long hash) {
+        long key = key(hash);
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET; i++) {
+            if (keys[i] == key) {
+                hits++;
+                return true;
+            }
+        }
+        misses++;
+        return false;
+    }
+
+    /**
+     * Records that a configuration has no solution below it.
+     *
+     * @param hash  the hash of the configuration
+     * @param depth how deep in the search the configuration was found
+     */
+    public void storeFailed(long hash, int depth) {
+        long key = key(hash);
+        int bucket = bucket(key);
+        int victim = bucket;
+        for (int i = bucket; i < bucket + BUCKET; i++) {
+            if (keys[i] == key || keys[i] == 0) {
+                victim = i;
+                break;
+            }
+            if (depths[i] > depths[victim]) {
+                victim = i;
+            }
+        }
+        if (keys[victim] != 0 && keys[victim] != key) {
+            evictions++;
+        }
+        keys[victim] = key;
+        depths[victim] = depth;
+        stores++;
+    }
+
+    /**
+     * Empties the table and resets its counters.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        hits = 0;
+        misses = 0;
+        stores = 0;
+        evictions = 0;
+    }
+
+    /**
+     * The number of slots in the table.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getStores() {
+        return stores;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    @Override
+    public String toString() {
+        return "hits " + hits + ", misses " + misses + ", stores " + stores + ", evictions " + evictions;
+    }
+
+    /**
+     * The hash as stored, never 0 since that marks an empty slot
+     */
+    private static long key(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    private int bucket(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
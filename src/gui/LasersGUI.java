@@ -1,10 +1,17 @@
 package gui;
 
-import backtracking.Backtracker;
+import backtracking.BacktrackingSolver;
+import backtracking.Configuration;
+import backtracking.Solver;
+import backtracking.SolverMetrics;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
+import javafx.beans.binding.ObjectBinding;
 import javafx.beans.property.DoubleProperty;
 import javafx.beans.property.SimpleDoubleProperty;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -13,20 +20,24 @@ import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.paint.ImagePattern;
-import javafx.scene.shape.Rectangle;
+import javafx.scene.paint.Paint;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.text.TextAlignment;
-import javafx.scene.text.TextBoundsType;
 import javafx.stage.FileChooser;
 import javafx.stage.Screen;
 import javafx.stage.Stage;
 import model.Coordinate;
 import model.LasersModel;
+import model.ModelEvent;
+import model.ModelEventBus;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * The main class that implements the JavaFX UI.   This class represents
@@ -36,18 +47,61 @@ import java.util.*;
  * @author Sean Strout @ RIT CS
  * @author Elijah Bosley, Stefan Marchhart
  */
-public class LasersGUI extends Application implements Observer {
+public class LasersGUI extends Application implements ModelEventBus.Listener {
     /**
      * The UI's connection to the model
      */
     private LasersModel model;
-    private String modelOut;
+    /**
+     * The solver behind the solve and hint buttons
+     */
+    private Solver solver = new BacktrackingSolver(false);
+    /**
+     * Runs the searches of the solve and hint buttons, one at a time, so the window stays responsive
+     */
+    private final ExecutorService solverThread = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Lasers solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * The search running, or null
+     */
+    private Task<Optional<Configuration>> search;
+    /**
+     * The buttons that wait while a search runs
+     */
+    private List<Button> actions;
+    private Button cancel;
+    /**
+     * Put before the next message of the model in the title, by the hint button
+     */
+    private String titlePrefix = "";
     private GridPane board;
     private Text title;
     private int width;
     private Double[] windowSize;
     private DoubleProperty fontSize = new SimpleDoubleProperty(10);
-    private double tileSize = 20.0;
+    /**
+     * The width and height of every tile, the tiles follow it
+     */
+    private DoubleProperty tileSize = new SimpleDoubleProperty(20.0);
+    /**
+     * The font of the pillar numbers, computed again when the tile size or the theme changes
+     */
+    private ObjectBinding<Font> tileFont;
+    /**
+     * The tiles of the board, indexed by row * width + col
+     */
+    private Tile[] tiles;
+    /**
+     * The cell the last check failed at, or -1
+     */
+    private int errorCell = -1;
+    /**
+     * The images of the tiles, each loaded once and shared by every tile showing it
+     */
+    private final Map<String, ImagePattern> patterns = new HashMap<>();
 
     /**
      * The following private state is used for theming.
@@ -81,7 +135,9 @@ public class LasersGUI extends Application implements Observer {
             System.out.println(fnfe.getMessage());
             System.exit(-1);
         }
-        this.model.addObserver(this);
+        // changes made in one go, such as a hint, reach the view as one batch in the next frame
+        this.model.getEvents().setDispatcher(Platform::runLater);
+        this.model.getEvents().addListener(this);
     }
 
     /**
@@ -111,7 +167,9 @@ public class LasersGUI extends Application implements Observer {
         Scene scene = new Scene(main);
 
         width = model.getWidth();
-        tileSize = 10;
+        tileSize.set(10);
+        tileFont = Bindings.createObjectBinding(
+                () -> new Font(pillarFont, tileSize.get() - fontSizeReduction), tileSize);
         fontSize.bind(scene.widthProperty().add(scene.heightProperty()).divide(50));
         stage.setHeight(Screen.getPrimary().getBounds().getHeight()/ 2);
         stage.setWidth(stage.getHeight());
@@ -133,7 +191,8 @@ public class LasersGUI extends Application implements Observer {
         board = new GridPane();
         board.setVgap(5);
         board.setHgap(5);
-        loadBoard(-1, -1);
+        board.maxHeightProperty().bind(tileSize.multiply(40));
+        buildBoard();
         board.setAlignment(Pos.CENTER);
         board.backgroundProperty().setValue(Background.EMPTY);
         main.getChildren().add(board);
@@ -173,21 +232,55 @@ public class LasersGUI extends Application implements Observer {
     }
 
     @Override
-    public void update(Observable o, Object arg) {
-        modelOut = (String) arg;
-        title.setText((String) arg);
-        updateBoard();
+    public void stop() throws Exception {
+        if (search != null) {
+            search.cancel(true);
+        }
+        solverThread.shutdownNow();
     }
 
+    @Override
+    public void modelChanged(List<ModelEvent> events) {
+        String message = null;
+        int error = -1;
+        boolean wholeBoard = false;
+        for (ModelEvent event : events) {
+            if (event.getMessage() != null) {
+                message = event.getMessage();
+            }
+            if (event.getKind() == ModelEvent.Kind.VERIFY_FAILED) {
+                error = event.getRow() * model.getWidth() + event.getCol();
+            }
+            wholeBoard |= event.isWholeBoard();
+        }
+        if (message != null) {
+            title.setText(titlePrefix + message);
+            titlePrefix = "";
+        }
 
-    /**
-     * Simple helper function that simply updates the beams and then reloads the game board
-     */
-    private void updateBoard() {
-        model.updateBeams();
-        loadBoard(-1, -1);
+        if (!fitsModel()) {
+            buildBoard();
+        }
+        int before = errorCell;
+        errorCell = error;
+        if (wholeBoard) {
+            paintBoard();
+            return;
+        }
+        for (ModelEvent event : events) {
+            for (int cell : event.getCells()) {
+                paint(cell);
+            }
+        }
+        if (before >= 0) {
+            paint(before);
+        }
+        if (errorCell >= 0) {
+            paint(errorCell);
+        }
     }
 
+
     /**
      * Handles resizing window when the GUI's size is changed
      * @param stage the stage, used to find the height and width
@@ -196,8 +289,7 @@ public class LasersGUI extends Application implements Observer {
         width = model.getWidth();
         windowSize[0] = stage.getWidth();
         windowSize[1] = stage.getHeight();
-        tileSize = Double.min((windowSize[0]/(model.getWidth() * 2)),(windowSize[1] / (model.getHeight() * 2)));
-        loadBoard(-1, -1);
+        tileSize.set(Double.min((windowSize[0]/(model.getWidth() * 2)),(windowSize[1] / (model.getHeight() * 2))));
     }
 
     /**
@@ -219,7 +311,11 @@ public class LasersGUI extends Application implements Observer {
         restart.setOnAction(MouseEvent -> reset());
         Button load = new Button("Load");
         load.setOnAction(MouseEvent -> loadNew(stage));
-        buttonBox.getChildren().addAll(check, hint, solve, restart, load);
+        cancel = new Button("Cancel");
+        cancel.setOnAction(MouseEvent -> search.cancel(true));
+        cancel.setDisable(true);
+        actions = Arrays.asList(check, hint, solve, restart, load);
+        buttonBox.getChildren().addAll(check, hint, solve, restart, load, cancel);
         buttonBox.autosize();
         return buttonBox;
     }
@@ -251,7 +347,7 @@ public class LasersGUI extends Application implements Observer {
         beamImage = "gui/resources/tron/tron_beam.png";
         emitterImage = "gui/resources/tron/tron_emitter.png";
         title.setFill(Color.ORANGERED);
-        loadBoard(-1, -1);
+        applyTheme();
     }
 
     private void setBasicTheme(Scene scene) {
@@ -269,74 +365,107 @@ public class LasersGUI extends Application implements Observer {
         beamImage = "gui/resources/beam2.png";
         emitterImage = "gui/resources/laser2.png";
         title.setFill(Color.BLACK);
-
-        loadBoard(-1, -1);
+        applyTheme();
     }
 
     /**
      * Solves the board and replaces with the solved configuration.
      */
     private void solve() {
-        Backtracker backtracker = new Backtracker(false);
         this.reset();
-        Optional temp = backtracker.solve(this.model);
-        if (temp.isPresent()) {
-            LasersModel replacement = (LasersModel) temp.get();
-            this.model.replaceModel(replacement);
-            title.setText("Solved!");
-            loadBoard(-1, -1);
-        } else {
-
-            title.setText("This safe has no solution!");
-        }
-
+        search("Solving", solution -> {
+            if (solution.isPresent()) {
+                // the board waited for the search, so the model is still the one that was solved
+                this.model.replaceModel(solution.get());
+                title.setText("Solved!");
+            } else {
+                title.setText("This safe has no solution!");
+            }
+        });
     }
 
     /**
-     * Uses a backtracker to solve the puzzle, then chooses an item from the solutionList to display as a the next step
+     * Uses the solver to solve the puzzle, then chooses an item from the solutionList to display as a the next step
      */
     private void hint() {
-        Backtracker backtracker = new Backtracker(false);
-        Optional temp = backtracker.solve(this.model);
-
-        if (temp.isPresent()) {
-            LasersModel solution = (LasersModel) temp.get();
-
-            ArrayList<Coordinate> solList = solution.getLasers();
-
-
-            for (Coordinate cord : solList) {
-                if (!model.getLasers().contains(cord)) {
-                    model.add(cord.getRow(), cord.getCol());
-                    title.setText("Hint: " + title.getText());
-                    model.updateBeams();
-                    return;
+        search("Looking for a hint", solution -> {
+            if (solution.isPresent()) {
+                for (Coordinate cord : solution.get().getLasers()) {
+                    if (!model.getLasers().contains(cord)) {
+                        titlePrefix = "Hint: ";
+                        model.add(cord.getRow(), cord.getCol());
+                        return;
+                    }
                 }
-                title.setText("Hint: no next step!");
             }
-
-        }else{
             title.setText("Hint: no next step!");
-        }
+        });
     }
 
     /**
-     * Verification function that sends the coordinates received from the model to the loadBoard function which will
-     * then color the tile that was not verified
+     * Searches a copy of the safe on the solver thread, showing the nodes expanded and the time taken in the title.
+     * The board and the other buttons wait for the search, Cancel interrupts it.
+     *
+     * @param what     what the search is for, shown in the title
+     * @param finished gets the solution, if there is one, on the JavaFX thread
+     */
+    private void search(String what, Consumer<Optional<LasersModel>> finished) {
+        LasersModel safe = new LasersModel(this.model);
+        Task<Optional<Configuration>> task = new Task<Optional<Configuration>>() {
+            @Override
+            protected Optional<Configuration> call() {
+                return solver.solve(safe);
+            }
+        };
+        SolverMetrics metrics = SolverMetrics.getInstance();
+        long startNodes = metrics.getNodesExpanded();
+        long start = System.nanoTime();
+        AnimationTimer progress = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                title.setText(String.format("%s... %,d nodes, %.1f s",
+                        what, metrics.getNodesExpanded() - startNodes, (now - start) / 1e9));
+            }
+        };
+        task.setOnSucceeded(WorkerStateEvent -> {
+            searchDone(progress);
+            finished.accept(task.getValue().map(LasersModel.class::cast));
+        });
+        task.setOnCancelled(WorkerStateEvent -> {
+            searchDone(progress);
+            title.setText(what + " cancelled");
+        });
+        task.setOnFailed(WorkerStateEvent -> {
+            searchDone(progress);
+            title.setText(what + " failed: " + task.getException());
+        });
+
+        search = task;
+        board.setDisable(true);
+        actions.forEach(button -> button.setDisable(true));
+        cancel.setDisable(false);
+        progress.start();
+        solverThread.execute(task);
+    }
+
+    private void searchDone(AnimationTimer progress) {
+        progress.stop();
+        search = null;
+        board.setDisable(false);
+        actions.forEach(button -> button.setDisable(false));
+        cancel.setDisable(true);
+    }
+
+    /**
+     * Verification function, the model reports the tile that was not verified and modelChanged colors it
      */
     private void verify() {
         model.verify();
-        if (modelOut.startsWith("Error verifying at: (")) {
-            String temp = modelOut.toLowerCase();
-            temp = temp.replaceAll("[^\\d,]+", "");
-            int[] coords = Arrays.stream(temp.split(",")).mapToInt(Integer::parseInt).toArray();
-            loadBoard(coords[0], coords[1]);
-        }
     }
 
     /**
-     * Helper function responsible for loading a new board. Uses the model's updateModel function and the loadBoard
-     * function
+     * Helper function responsible for loading a new board. Uses the model's updateModel function, the tiles follow
+     * when the model reports it was reloaded
      */
     private void loadNew(Stage stage) {
         FileChooser fileChooser = new FileChooser();
@@ -347,11 +476,8 @@ public class LasersGUI extends Application implements Observer {
 
         try {
             String filename = file.getPath();
-            board.getChildren().clear();
             this.model.updateModel(filename);
-            model.updateBeams();
             resizeWindows(stage);
-            loadBoard(-1, -1);
 
 
         } catch (Exception e) {
@@ -365,117 +491,101 @@ public class LasersGUI extends Application implements Observer {
      */
     private void reset() {
         model.reset();
-        loadBoard(-1, -1);
         title.setText("The safe has been reset");
     }
 
     /**
-     * Function that loads the board into the GridPane board object. This is used on the redraw of the board as well
-     * as on the initial initialization of the program.
+     * Creates a tile for every cell of the safe, replacing the tiles of the last safe. Only needed when the safe
+     * changes size; every other change repaints the tiles that look different.
      */
-    private void loadBoard(int rowS, int colS) {
-        for (int i = 0; i < board.getChildren().size() - 1; i++) {
-            board.getChildren().remove(0);
+    private void buildBoard() {
+        board.getChildren().clear();
+        tiles = new Tile[model.getHeight() * model.getWidth()];
+        for (int row = 0; row < model.getHeight(); row++) {
+            for (int col = 0; col < model.getWidth(); col++) {
+                Tile tile = new Tile(row, col, tileSize, tileFont);
+                tile.setOnMouseClicked(MouseClickEvent -> updateLaser(tile));
+                tiles[row * model.getWidth() + col] = tile;
+                board.add(tile, col, row);
+            }
         }
+        errorCell = -1;
+        paintBoard();
+    }
 
-        for (int row = 0; row < this.model.getHeight(); row++) {
-            for (int col = 0; col < this.model.getWidth(); col++) {
-                double arc = tileSize / 3;
-                StackPane stack = new StackPane();
-                /** Setup background fill */
-                Rectangle background = new Rectangle(tileSize, tileSize, Color.LIGHTGRAY);
-                background.setArcWidth(arc);
-                background.setArcHeight(arc);
-                background.setSmooth(true);
-                /** Setup rectangle */
-                RectangleGrid rect = new RectangleGrid(tileSize, tileSize, Color.TRANSPARENT, row, col);
-                rect.setArcHeight(arc);
-                rect.setArcWidth(arc);
-                rect.setSmooth(true);
-                /** Setup text */
-                Text text = new Text("");
-                text.setFill(pillarFontColor);
-                text.setFont(new Font(pillarFont, tileSize - fontSizeReduction));
-                text.setBoundsType(TextBoundsType.VISUAL);
-
-                if ("01234X".indexOf(this.model.getGrid(row, col)) != -1) { // if it's a black tile
-                    if (row == rowS && col == colS) {
-                        background.setFill(verifyErrorColor);
-                    } else {
-                        background.setFill(pillarColor);
-                    }
-                    Image pillar = new Image(pillarImage);
-                    ImagePattern fill = new ImagePattern(pillar);
-                    rect.setFill(fill);
-                    if (this.model.getGrid(row, col) != 'X') {
-                        text.setText(this.model.getGrid(row, col) + "");
-                    }
-
-                    /** This else loop is responsible for dealing with coloring lasers and beams */
-                } else { // it's either a laser or a beam
-                    if (this.model.getGrid(row, col) == '*') {
-                        if (row == rowS && col == colS) {
-                            background.setFill(verifyErrorColor);
-                        } else {
-                            background.setFill(laserColor);
-                        }
-                        Image beam = new Image(beamImage);
-                        ImagePattern fill = new ImagePattern(beam);
-                        rect.setFill(fill);
-
-                    } else if (this.model.getGrid(row, col) == 'L') {
-                        if (row == rowS && col == colS) {
-                            background.setFill(verifyErrorColor);
-                        } else {
-                            background.setFill(emitterColor);
-                        }
-                        Image laser = new Image(emitterImage);
-                        ImagePattern fill = new ImagePattern(laser);
-                        rect.setFill(fill);
-                    } else {
-                        if (row == rowS && col == colS) {
-                            background.setFill(verifyErrorColor);
-                        } else {
-                            background.setFill(backgroundTileColor);
-                        }
-                    }
-
-                }
+    /**
+     * Do the tiles match the size of the safe?
+     */
+    private boolean fitsModel() {
+        return tiles.length == model.getHeight() * model.getWidth()
+                && tiles[tiles.length - 1].getCol() == model.getWidth() - 1;
+    }
 
-                stack.getChildren().add(background);
-                stack.getChildren().add(rect);
-                stack.getChildren().add(text);
-                stack.setOnMouseClicked(MouseClickEvent -> updateLaser(stack));
+    /**
+     * Loads the images of the theme, if they were not loaded before, and repaints every tile with its colors
+     */
+    private void applyTheme() {
+        tileFont.invalidate();
+        paintBoard();
+    }
 
-                board.add(stack, col, row);
+    private void paintBoard() {
+        for (int cell = 0; cell < tiles.length; cell++) {
+            paint(cell);
+        }
+    }
 
-                board.setMaxHeight(tileSize * 40);
+    /**
+     * Shows the current state of a cell on its tile
+     *
+     * @param cell the cell, indexed by row * width + col
+     */
+    private void paint(int cell) {
+        char grid = model.getGrid(cell / model.getWidth(), cell % model.getWidth());
+        Paint fill;
+        Paint image = Color.TRANSPARENT;
+        String label = "";
+        if ("01234X".indexOf(grid) != -1) { // if it's a black tile
+            fill = pillarColor;
+            image = pattern(pillarImage);
+            if (grid != 'X') {
+                label = String.valueOf(grid);
             }
+        } else if (grid == '*') {
+            fill = laserColor;
+            image = pattern(beamImage);
+        } else if (grid == 'L') {
+            fill = emitterColor;
+            image = pattern(emitterImage);
+        } else {
+            fill = backgroundTileColor;
         }
+        if (cell == errorCell) {
+            fill = verifyErrorColor;
+        }
+        tiles[cell].paint(fill, image, label, pillarFontColor);
     }
 
     /**
-     * Given a RectangleGrid object will check the position and add a laser to the model, as well as changing the
-     * icon to a laser or back to the blank icon
+     * The pattern of an image, loading the image the first time it is asked for
      *
-     * @param stack the stack object to change
+     * @param image the resource path of the image
      */
-    private void updateLaser(StackPane stack) {
-        RectangleGrid rect = (RectangleGrid) stack.getChildren().get(1);
-        Character curr = this.model.getGrid(rect.getRow(), rect.getCol());
-        if (curr == 'L') {
-
-            this.model.remove(rect.getRow(), rect.getCol());
-            rect.setFill(backgroundTileColor);
-        } else if (curr == '.' || curr == '*') {
-
-            this.model.add(rect.getRow(), rect.getCol());
-            Image laser = new Image(emitterImage);
-            ImagePattern fill = new ImagePattern(laser);
-            rect.setFill(fill);
+    private ImagePattern pattern(String image) {
+        return patterns.computeIfAbsent(image, path -> new ImagePattern(new Image(path)));
+    }
 
+    /**
+     * Adds a laser to the model at the tile clicked, or removes the laser there. The tiles change when the model
+     * reports the change.
+     *
+     * @param tile the tile clicked
+     */
+    private void updateLaser(Tile tile) {
+        if (this.model.getGrid(tile.getRow(), tile.getCol()) == 'L') {
+            this.model.remove(tile.getRow(), tile.getCol());
         } else {
-            this.model.add(rect.getRow(), rect.getCol());
+            this.model.add(tile.getRow(), tile.getCol());
         }
     }
 }
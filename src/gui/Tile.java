@@ -0,0 +1,79 @@
+package gui;
+
+import javafx.beans.binding.ObjectExpression;
+import javafx.beans.property.DoubleProperty;
+import javafx.scene.layout.StackPane;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextBoundsType;
+
+/**
+ * The node of one cell of the board, kept for as long as the safe has the same size. Its size and font follow
+ * properties shared by every tile, so resizing the window changes no tile by hand, and painting it only touches the
+ * parts that look different.
+ *
+ * @author Elijah Bosley
+ */
+class Tile extends StackPane {
+    private final Rectangle background;
+    private final RectangleGrid image;
+    private final Text text;
+
+    /**
+     * Creates a blank tile.
+     *
+     * @param row  the row of the cell
+     * @param col  the column of the cell
+     * @param size the width and height of every tile
+     * @param font the font of the pillar numbers
+     */
+    Tile(int row, int col, DoubleProperty size, ObjectExpression<Font> font) {
+        background = new Rectangle(0, 0, Color.LIGHTGRAY);
+        image = new RectangleGrid(0, 0, Color.TRANSPARENT, row, col);
+        for (Rectangle rect : new Rectangle[]{background, image}) {
+            rect.widthProperty().bind(size);
+            rect.heightProperty().bind(size);
+            rect.arcWidthProperty().bind(size.divide(3));
+            rect.arcHeightProperty().bind(size.divide(3));
+            rect.setSmooth(true);
+        }
+        text = new Text("");
+        text.fontProperty().bind(font);
+        text.setBoundsType(TextBoundsType.VISUAL);
+        getChildren().addAll(background, image, text);
+    }
+
+    int getRow() {
+        return image.getRow();
+    }
+
+    int getCol() {
+        return image.getCol();
+    }
+
+    /**
+     * Shows the tile in a new state.
+     *
+     * @param fill      the color of the tile
+     * @param pattern   the image on top of it
+     * @param label     the text on top of that
+     * @param textColor the color of the text
+     */
+    void paint(Paint fill, Paint pattern, String label, Paint textColor) {
+        if (!fill.equals(background.getFill())) {
+            background.setFill(fill);
+        }
+        if (!pattern.equals(image.getFill())) {
+            image.setFill(pattern);
+        }
+        if (!label.equals(text.getText())) {
+            text.setText(label);
+        }
+        if (!textColor.equals(text.getFill())) {
+            text.setFill(textColor);
+        }
+    }
+}
@@ -0,0 +1,577 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Bit packed storage for the state of a safe. Pillars and lasers are kept one bit per cell both row-major and
+ * column-major, beams are kept row-major. Line of sight lookups and open cell scans become word operations instead
+ * of per character scans, and copying a board is a handful of array copies.
+ * <p>
+ * Pillars never change once a safe has been loaded, so copies share the pillar masks. A further mask marks the empty
+ * cells the search has ruled out for lasers. A cell is open while it is none of pillar, laser, beam or blocked.
+ * <p>
+ * Every cell also counts the rays passing through it, and is lit while that count is above zero. Putting a laser on
+ * or taking one off then only touches the rays it starts, cuts short or lets through, never the rest of the board,
+ * even where the beams of several lasers cross. Rays stop at the nearest pillar or laser, so pillars and lasers are
+ * never lit.
+ * <p>
+ * The board keeps count of the cells that are none of pillar, laser or beam as it changes, so telling whether every
+ * cell is covered does not need a scan. It also keeps a Zobrist hash of which cells are still dark and which of
+ * those are open. Boards that agree on both leave the same problem to solve, however their lasers were placed.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+public class BitBoard {
+
+    /**
+     * The number of rows in the board
+     */
+    private final int height;
+    /**
+     * The number of columns in the board
+     */
+    private final int width;
+    /**
+     * The number of longs used for a single row
+     */
+    private final int rowWords;
+    /**
+     * The number of longs used for a single column
+     */
+    private final int colWords;
+
+    private final long[] rowPillars;
+    private final long[] colPillars;
+    private final long[] rowLasers;
+    private final long[] colLasers;
+    private final long[] beams;
+    private final long[] blocked;
+    /**
+     * The number of rays passing through each cell, row-major
+     */
+    private final byte[] rayCount;
+    /**
+     * The number of cells that are none of pillar, laser or beam
+     */
+    private int uncovered;
+    /**
+     * The Zobrist hash of the dark and the open cells
+     */
+    private long hash;
+
+    /**
+     * What a cell still asks of the search: nothing once it is a pillar, laser or beam, to be lit while it is
+     * dark, and possibly a laser as long as it is open as well
+     */
+    private static final int COVERED = 0;
+    private static final int DARK = 1;
+    private static final int OPEN = 2;
+
+    /**
+     * Creates an empty board with no pillars, lasers or beams
+     *
+     * @param height the number of rows
+     * @param width  the number of columns
+     */
+    public BitBoard(int height, int width) {
+        this.height = height;
+        this.width = width;
+        this.rowWords = (width + 63) >>> 6;
+        this.colWords = (height + 63) >>> 6;
+        this.rowPillars = new long[height * rowWords];
+        this.colPillars = new long[width * colWords];
+        this.rowLasers = new long[height * rowWords];
+        this.colLasers = new long[width * colWords];
+        this.beams = new long[height * rowWords];
+        this.blocked = new long[height * rowWords];
+        this.rayCount = new byte[height * width];
+        recount();
+    }
+
+    /**
+     * Copy constructor, the pillar masks are shared with the original
+     *
+     * @param other the board to copy from
+     */
+    public BitBoard(BitBoard other) {
+        this.height = other.height;
+        this.width = other.width;
+        this.rowWords = other.rowWords;
+        this.colWords = other.colWords;
+        this.rowPillars = other.rowPillars;
+        this.colPillars = other.colPillars;
+        this.rowLasers = other.rowLasers.clone();
+        this.colLasers = other.colLasers.clone();
+        this.beams = other.beams.clone();
+        this.blocked = other.blocked.clone();
+        this.rayCount = other.rayCount.clone();
+        this.uncovered = other.uncovered;
+        this.hash = other.hash;
+    }
+
+    /**
+     * Overwrites the lasers and beams of this board with the ones of another board of the same safe
+     *
+     * @param other the board to copy from
+     */
+    public void copyFrom(BitBoard other) {
+        System.arraycopy(other.rowLasers, 0, rowLasers, 0, rowLasers.length);
+        System.arraycopy(other.colLasers, 0, colLasers, 0, colLasers.length);
+        System.arraycopy(other.beams, 0, beams, 0, beams.length);
+        System.arraycopy(other.blocked, 0, blocked, 0, blocked.length);
+        System.arraycopy(other.rayCount, 0, rayCount, 0, rayCount.length);
+        uncovered = other.uncovered;
+        hash = other.hash;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public boolean isPillar(int r, int c) {
+        return test(rowPillars, r * rowWords, c);
+    }
+
+    public boolean isLaser(int r, int c) {
+        return test(rowLasers, r * rowWords, c);
+    }
+
+    public boolean isBeam(int r, int c) {
+        return test(beams, r * rowWords, c);
+    }
+
+    public boolean isBlocked(int r, int c) {
+        return test(blocked, r * rowWords, c);
+    }
+
+    /**
+     * Checks whether a cell is still open, meaning a laser could be placed on it without seeing another laser
+     *
+     * @param r the row
+     * @param c the column
+     * @return true if the cell is none of pillar, laser, beam or blocked
+     */
+    public boolean isOpen(int r, int c) {
+        int i = r * rowWords + (c >>> 6);
+        return ((rowPillars[i] | rowLasers[i] | beams[i] | blocked[i]) & (1L << c)) == 0;
+    }
+
+    /**
+     * Marks a cell as a pillar, only used while loading a safe
+     *
+     * @param r the row
+     * @param c the column
+     */
+    public void setPillar(int r, int c) {
+        int was = status(r, c);
+        set(rowPillars, r * rowWords, c);
+        set(colPillars, c * colWords, r);
+        changed(r, c, was);
+    }
+
+    public void setLaser(int r, int c) {
+        int was = status(r, c);
+        set(rowLasers, r * rowWords, c);
+        set(colLasers, c * colWords, r);
+        changed(r, c, was);
+    }
+
+    public void clearLaser(int r, int c) {
+        int was = status(r, c);
+        clear(rowLasers, r * rowWords, c);
+        clear(colLasers, c * colWords, r);
+        changed(r, c, was);
+    }
+
+    /**
+     * Passes one more ray through a cell, lighting it if it was dark
+     *
+     * @param r the row
+     * @param c the column
+     */
+    public void addRay(int r, int c) {
+        shine(r, c, 1, null, 0);
+    }
+
+    /**
+     * Takes a ray off a cell, which goes dark once no ray passes through it
+     *
+     * @param r the row
+     * @param c the column
+     */
+    public void removeRay(int r, int c) {
+        shine(r, c, -1, null, 0);
+    }
+
+    public void setBlocked(int r, int c) {
+        int was = status(r, c);
+        set(blocked, r * rowWords, c);
+        changed(r, c, was);
+    }
+
+    public void clearBlocked(int r, int c) {
+        int was = status(r, c);
+        clear(blocked, r * rowWords, c);
+        changed(r, c, was);
+    }
+
+    /**
+     * Removes every laser from the board
+     */
+    public void clearLasers() {
+        Arrays.fill(rowLasers, 0L);
+        Arrays.fill(colLasers, 0L);
+        recount();
+    }
+
+    /**
+     * Removes every beam from the board
+     */
+    public void clearBeams() {
+        Arrays.fill(beams, 0L);
+        Arrays.fill(rayCount, (byte) 0);
+        recount();
+    }
+
+    /**
+     * Opens every blocked cell again
+     */
+    public void clearBlocked() {
+        Arrays.fill(blocked, 0L);
+        recount();
+    }
+
+    /**
+     * Finds the first open cell at or after a cell, in row-major order
+     *
+     * @param cell the cell to start from, as row * width + col
+     * @return the first open cell, or height * width if there is none
+     */
+    public int nextOpen(int cell) {
+        if (cell < 0) {
+            cell = 0;
+        }
+        int row = cell / width;
+        int col = cell % width;
+        long last = -1L >>> -width;
+        while (row < height) {
+            int base = row * rowWords;
+            for (int w = col >>> 6; w < rowWords; w++) {
+                long used = rowPillars[base + w] | rowLasers[base + w] | beams[base + w] | blocked[base + w];
+                long open = ~used & (w == rowWords - 1 ? last : -1L);
+                if (w == col >>> 6) {
+                    open &= -1L << col;
+                }
+                if (open != 0) {
+                    return row * width + (w << 6) + Long.numberOfTrailingZeros(open);
+                }
+            }
+            row++;
+            col = 0;
+        }
+        return height * width;
+    }
+
+    /**
+     * Finds the column of the nearest pillar or laser left of a cell
+     *
+     * @param r the row
+     * @param c the column to look left from
+     * @return the column of the blocking cell, or -1 if the ray reaches the wall
+     */
+    public int leftStop(int r, int c) {
+        return prevSetBit(rowPillars, rowLasers, r * rowWords, c - 1);
+    }
+
+    /**
+     * Finds the column of the nearest pillar or laser right of a cell
+     *
+     * @param r the row
+     * @param c the column to look right from
+     * @return the column of the blocking cell, or the width if the ray reaches the wall
+     */
+    public int rightStop(int r, int c) {
+        return nextSetBit(rowPillars, rowLasers, r * rowWords, c + 1, width);
+    }
+
+    /**
+     * Finds the row of the nearest pillar or laser above a cell
+     *
+     * @param r the row to look up from
+     * @param c the column
+     * @return the row of the blocking cell, or -1 if the ray reaches the wall
+     */
+    public int upStop(int r, int c) {
+        return prevSetBit(colPillars, colLasers, c * colWords, r - 1);
+    }
+
+    /**
+     * Finds the row of the nearest pillar or laser below a cell
+     *
+     * @param r the row to look down from
+     * @param c the column
+     * @return the row of the blocking cell, or the height if the ray reaches the wall
+     */
+    public int downStop(int r, int c) {
+        return nextSetBit(colPillars, colLasers, c * colWords, r + 1, height);
+    }
+
+    /**
+     * Adds or takes off the rays of a laser in all four directions, up to the nearest pillar or laser
+     *
+     * @param r     the row of the laser
+     * @param c     the column of the laser
+     * @param paint true to add the rays, false to take them off
+     */
+    public void rays(int r, int c, boolean paint) {
+        int delta = paint ? 1 : -1;
+        shineRow(r, leftStop(r, c) + 1, c, delta, null, 0);
+        shineRow(r, c + 1, rightStop(r, c), delta, null, 0);
+        shineCol(c, upStop(r, c) + 1, r, delta, null, 0);
+        shineCol(c, r + 1, downStop(r, c), delta, null, 0);
+    }
+
+    /**
+     * Adds the rays of a laser in all four directions and logs every cell that was not lit before
+     *
+     * @param r    the row of the laser
+     * @param c    the column of the laser
+     * @param log  the array to append the newly lit cells (row * width + col) to
+     * @param size the current size of the log
+     * @return the new size of the log
+     */
+    public int castRays(int r, int c, int[] log, int size) {
+        size = shineRow(r, leftStop(r, c) + 1, c, 1, log, size);
+        size = shineRow(r, c + 1, rightStop(r, c), 1, log, size);
+        size = shineCol(c, upStop(r, c) + 1, r, 1, log, size);
+        return shineCol(c, r + 1, downStop(r, c), 1, log, size);
+    }
+
+    /**
+     * Adds or takes off the stretch of the other lasers' rays beyond a cell with no laser on it. A laser put on the
+     * cell cuts the rays reaching it short, so this is called with false just before, and a laser taken off lets
+     * them through again, so this is called with true just after.
+     *
+     * @param r     the row of the cell
+     * @param c     the column of the cell
+     * @param paint true to add the rays, false to take them off
+     */
+    public void crossingRays(int r, int c, boolean paint) {
+        int delta = paint ? 1 : -1;
+        int left = leftStop(r, c);
+        int right = rightStop(r, c);
+        int up = upStop(r, c);
+        int down = downStop(r, c);
+        if (left >= 0 && isLaser(r, left)) {
+            shineRow(r, c, right, delta, null, 0);
+        }
+        if (right < width && isLaser(r, right)) {
+            shineRow(r, left + 1, c + 1, delta, null, 0);
+        }
+        if (up >= 0 && isLaser(up, c)) {
+            shineCol(c, r, down, delta, null, 0);
+        }
+        if (down < height && isLaser(down, c)) {
+            shineCol(c, up + 1, r + 1, delta, null, 0);
+        }
+    }
+
+    /**
+     * Adds a ray to or takes one off the columns from (inclusive) to (exclusive) of a row
+     */
+    private int shineRow(int r, int from, int to, int delta, int[] log, int size) {
+        for (int col = from; col < to; col++) {
+            size = shine(r, col, delta, log, size);
+        }
+        return size;
+    }
+
+    /**
+     * Adds a ray to or takes one off the rows from (inclusive) to (exclusive) of a column
+     */
+    private int shineCol(int c, int from, int to, int delta, int[] log, int size) {
+        for (int row = from; row < to; row++) {
+            size = shine(row, c, delta, log, size);
+        }
+        return size;
+    }
+
+    /**
+     * Changes the ray count of a cell, lighting it or putting it out when the count leaves or reaches zero
+     *
+     * @param log  where to log the cell if it lights up, or null
+     * @param size the current size of the log
+     * @return the new size of the log
+     */
+    private int shine(int r, int c, int delta, int[] log, int size) {
+        int cell = r * width + c;
+        int before = rayCount[cell];
+        rayCount[cell] = (byte) (before + delta);
+        if (before == 0) {
+            int was = status(r, c);
+            set(beams, r * rowWords, c);
+            changed(r, c, was);
+            if (log != null) {
+                log[size++] = cell;
+            }
+        } else if (before + delta == 0) {
+            int was = status(r, c);
+            clear(beams, r * rowWords, c);
+            changed(r, c, was);
+        }
+        return size;
+    }
+
+    /**
+     * Checks that every cell of the board is a pillar, a laser or a beam
+     *
+     * @return true if no empty cell is left
+     */
+    public boolean isFullyCovered() {
+        return uncovered == 0;
+    }
+
+    /**
+     * Counts the cells that are none of pillar, laser or beam
+     *
+     * @return the number of empty cells
+     */
+    public int getUncovered() {
+        return uncovered;
+    }
+
+    /**
+     * The Zobrist hash of the cells that are still dark and the cells that are still open
+     *
+     * @return the hash
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    private int status(int r, int c) {
+        int i = r * rowWords + (c >>> 6);
+        long bit = 1L << c;
+        if (((rowPillars[i] | rowLasers[i] | beams[i]) & bit) != 0) {
+            return COVERED;
+        }
+        return (blocked[i] & bit) != 0 ? DARK : OPEN;
+    }
+
+    /**
+     * Updates the empty cell count and the hash after a single cell changed
+     *
+     * @param was the status of the cell before the change
+     */
+    private void changed(int r, int c, int was) {
+        int now = status(r, c);
+        if (now != was) {
+            if (was == COVERED) {
+                uncovered++;
+            } else if (now == COVERED) {
+                uncovered--;
+            }
+            int cell = r * width + c;
+            hash ^= statusKey(cell, was) ^ statusKey(cell, now);
+        }
+    }
+
+    private static long statusKey(int cell, int status) {
+        return status == COVERED ? 0L : Zobrist.key(2L * cell + status - 1);
+    }
+
+    /**
+     * Counts the empty cells and hashes the board from scratch, after a bulk change of the masks
+     */
+    private void recount() {
+        uncovered = 0;
+        hash = 0L;
+        for (int r = 0; r < height; r++) {
+            for (int c = 0; c < width; c++) {
+                int status = status(r, c);
+                if (status != COVERED) {
+                    uncovered++;
+                    hash ^= statusKey(r * width + c, status);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the lasers directly next to a cell
+     *
+     * @param r the row
+     * @param c the column
+     * @return the number of lasers up, down, left and right of the cell
+     */
+    public int countLaserNeighbors(int r, int c) {
+        int count = 0;
+        if (c > 0 && isLaser(r, c - 1)) count++;
+        if (c < width - 1 && isLaser(r, c + 1)) count++;
+        if (r > 0 && isLaser(r - 1, c)) count++;
+        if (r < height - 1 && isLaser(r + 1, c)) count++;
+        return count;
+    }
+
+    private static boolean test(long[] bits, int base, int i) {
+        return (bits[base + (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, int base, int i) {
+        bits[base + (i >>> 6)] |= 1L << i;
+    }
+
+    private static void clear(long[] bits, int base, int i) {
+        bits[base + (i >>> 6)] &= ~(1L << i);
+    }
+
+    /**
+     * Finds the highest index at or below from that is set in either of two masks
+     *
+     * @return the index, or -1 if there is none
+     */
+    private static int prevSetBit(long[] a, long[] b, int base, int from) {
+        if (from < 0) {
+            return -1;
+        }
+        int w = from >>> 6;
+        long word = (a[base + w] | b[base + w]) & (-1L >>> (63 - (from & 63)));
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(word);
+            }
+            if (--w < 0) {
+                return -1;
+            }
+            word = a[base + w] | b[base + w];
+        }
+    }
+
+    /**
+     * Finds the lowest index at or above from that is set in either of two masks
+     *
+     * @return the index, or limit if there is none
+     */
+    private static int nextSetBit(long[] a, long[] b, int base, int from, int limit) {
+        if (from >= limit) {
+            return limit;
+        }
+        int w = from >>> 6;
+        int words = (limit + 63) >>> 6;
+        long word = (a[base + w] | b[base + w]) & (-1L << from);
+        while (true) {
+            if (word != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(word);
+            }
+            if (++w >= words) {
+                return limit;
+            }
+            word = a[base + w] | b[base + w];
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
+/**
+ * Writes a safe in the text layout of the plain text UI straight to an
+ * Appendable, one row at a time from a buffer that is reused between rows
+ * and frames, so drawing a board takes time in proportion to its size.
+ * <br>
+ * In ANSI mode the renderer remembers the last frame it drew. The first
+ * frame clears the terminal, is drawn at the top and keeps the lines
+ * below it as the scrolling region, so messages and prompts scroll
+ * underneath the board. Later frames only rewrite the rows that changed,
+ * moving the cursor there and back. A board of another size is drawn
+ * again in full.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+public class BoardRenderer {
+
+    private final static char HORI_DIVIDE = '-';
+    private final static char VERT_DIVIDE = '|';
+
+    private static final String ESC = "\u001b[";
+    /**
+     * Gives the whole terminal back to scrolling
+     */
+    public static final String RESET = ESC + "r";
+
+    private final boolean ansi;
+    private char[] line = new char[64];
+    /**
+     * The cells of the last frame drawn in ANSI mode, null before the first
+     */
+    private char[] last;
+    private int lastHeight;
+    private int lastWidth;
+
+    /**
+     * Creates a renderer that draws every frame in full.
+     */
+    public BoardRenderer() {
+        this(false);
+    }
+
+    /**
+     * Creates a renderer.
+     *
+     * @param ansi whether to redraw only the rows that changed, with ANSI escapes
+     */
+    public BoardRenderer(boolean ansi) {
+        this.ansi = ansi;
+    }
+
+    /**
+     * Draws the safe as text.
+     *
+     * @param model the safe
+     * @return the column labels, a divider and a line per row, as LasersModel.toString()
+     */
+    public static String toString(LasersModel model) {
+        StringBuilder result = new StringBuilder(
+                (model.getHeight() + 2) * (2 * model.getWidth() + digits(model.getHeight()) + 2));
+        try {
+            new BoardRenderer().render(model, result);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Draws a frame. A full frame ends with its last row, without a line
+     * break. In ANSI mode a frame ends on the line below the board, or where
+     * the cursor was if only some rows were drawn again.
+     *
+     * @param model the safe
+     * @param out   where to write
+     * @throws IOException if out fails
+     */
+    public void render(LasersModel model, Appendable out) throws IOException {
+        int height = model.getHeight();
+        int width = model.getWidth();
+        if (!ansi) {
+            header(width, out);
+            for (int row = 0; row < height; row++) {
+                if (row > 0) {
+                    out.append('\n');
+                }
+                write(out, row(model, row, null));
+            }
+        } else if (last == null || height != lastHeight || width != lastWidth) {
+            last = new char[height * width];
+            lastHeight = height;
+            lastWidth = width;
+            out.append(ESC).append("H").append(ESC).append("2J");
+            header(width, out);
+            for (int row = 0; row < height; row++) {
+                write(out, row(model, row, last));
+                out.append('\n');
+            }
+            // the lines below the board scroll, the board stays
+            int below = height + 3;
+            out.append(ESC).append(Integer.toString(below)).append(";r");
+            out.append(ESC).append(Integer.toString(below)).append(";1H");
+        } else {
+            boolean saved = false;
+            for (int row = 0; row < height; row++) {
+                if (!changed(model, row)) {
+                    continue;
+                }
+                if (!saved) {
+                    out.append("\u001b7");
+                    saved = true;
+                }
+                out.append(ESC).append(Integer.toString(row + 3)).append(";1H");
+                write(out, row(model, row, last));
+                out.append(ESC).append("K");
+            }
+            if (saved) {
+                out.append("\u001b8");
+            }
+        }
+    }
+
+    /**
+     * Writes the column labels and the divider under them.
+     */
+    private void header(int width, Appendable out) throws IOException {
+        out.append("  ");
+        for (int col = 0; col < width; col++) {
+            out.append(Integer.toString(col)).append(' ');
+        }
+        out.append("\n  ");
+        for (int i = 0; i < 2 * width - 1; i++) {
+            out.append(HORI_DIVIDE);
+        }
+        out.append('\n');
+    }
+
+    /**
+     * Does a row differ from the last frame?
+     */
+    private boolean changed(LasersModel model, int row) {
+        int width = model.getWidth();
+        for (int col = 0; col < width; col++) {
+            if (last[row * width + col] != model.getGrid(row, col)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lays out a row in the line buffer.
+     *
+     * @param cells where to remember the cells of the row, or null
+     * @return the length of the row
+     */
+    private int row(LasersModel model, int row, char[] cells) {
+        int width = model.getWidth();
+        String label = Integer.toString(row);
+        int length = label.length() + 2 * width;
+        if (line.length < length) {
+            line = new char[length];
+        }
+        label.getChars(0, label.length(), line, 0);
+        int at = label.length();
+        line[at++] = VERT_DIVIDE;
+        for (int col = 0; col < width; col++) {
+            if (col > 0) {
+                line[at++] = ' ';
+            }
+            char cell = model.getGrid(row, col);
+            line[at++] = cell;
+            if (cells != null) {
+                cells[row * width + col] = cell;
+            }
+        }
+        return at;
+    }
+
+    /**
+     * Appends the start of the line buffer, without copying it where out allows.
+     */
+    private void write(Appendable out, int length) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(line, 0, length);
+        } else if (out instanceof Writer) {
+            ((Writer) out).write(line, 0, length);
+        } else {
+            out.append(CharBuffer.wrap(line, 0, length));
+        }
+    }
+
+    private static int digits(int n) {
+        return Integer.toString(n).length();
+    }
+}
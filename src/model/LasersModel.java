@@ -1,8 +1,10 @@
 package model;
 
 import backtracking.Configuration;
+import backtracking.HashedConfiguration;
+import backtracking.PruneReason;
+import backtracking.ReversibleConfiguration;
 
-import java.io.File;
 import java.io.FileNotFoundException;
 import java.util.*;
 
@@ -14,7 +16,7 @@ import java.util.*;
  * @author Stefan Marchhart
  */
 
-public class LasersModel extends Observable implements Configuration {
+public class LasersModel implements ReversibleConfiguration, HashedConfiguration {
 
     /**
      * an empty cell
@@ -34,9 +36,14 @@ public class LasersModel extends Observable implements Configuration {
      */
     private static boolean running = true;
     /**
-     * The grid, stored as a 2D char array
+     * The state of the grid, stored as bit masks
      */
-    private char[][] grid;
+    private BitBoard board;
+    /**
+     * The characters of the pillars, indexed by row * width + col. The layout of a safe never changes once it is
+     * loaded, so copies share this array.
+     */
+    private char[] clues;
     /**
      * The width of the Laser Room
      */
@@ -50,35 +57,85 @@ public class LasersModel extends Observable implements Configuration {
     private int currentRow;
     private int currentCol;
 
-    private ArrayList<Coordinate> lasers;
+    /**
+     * The cells (row * width + col) holding a laser, in the order they were placed. Grown as needed, so copies
+     * only carry the lasers there are.
+     */
+    private int[] laserCells;
+    private int laserCount;
     private ArrayList<Coordinate> pillars;
+    /**
+     * The number of lasers each cell needs around it, -1 for every cell but a numbered pillar. Shared by copies.
+     */
+    private int[] needs;
+    /**
+     * The position of every numbered pillar in pillarLasers, -1 for every other cell. Shared by copies.
+     */
+    private int[] pillarIndex;
 
+    /**
+     * Counters kept up to date as lasers come and go, so isValid and isGoal never scan the grid: the lasers next
+     * to each numbered pillar, the numbered pillars without exactly their number of lasers, the ones with too
+     * many, and the pairs of lasers that can see each other
+     */
+    private byte[] pillarLasers;
+    private int unmet;
+    private int overfull;
+    private int conflicts;
+    /**
+     * The Zobrist hash of the laser counts of the numbered pillars
+     */
+    private long pillarHash;
 
-    public LasersModel(String filename) throws FileNotFoundException {
-        Scanner in = null;
-        in = new Scanner(new File(filename));
-
-        width = Integer.parseInt(in.next());
-        height = Integer.parseInt(in.next());
+    /**
+     * The kinds of trail entries, kept in the top bits of an entry with the cell in the rest
+     */
+    private static final int BLOCK_ENTRY = 1 << 29;
+    private static final int LASER_ENTRY = 2 << 29;
+    private static final int CELL_MASK = (1 << 29) - 1;
 
+    /**
+     * The change log used by make and unmake, holding every laser placed and cell blocked by the search. The beams
+     * of a laser are taken off again along with it. Allocated on the first make, never copied.
+     */
+    private int[] trail;
+    private int trailSize;
+    /**
+     * Two entries per make, the trail size and the cursor before it
+     */
+    private int[] frames;
+    private int depth;
+    /**
+     * The cells propagation still has to look at, and which cells are in that list
+     */
+    private int[] work;
+    private int workSize;
+    private boolean[] queued;
+    /**
+     * Scratch space for the options of a decision
+     */
+    private int[] optionCells;
+    /**
+     * Scratch space for the cells a laser placed by the search lights up
+     */
+    private int[] litCells;
+    /**
+     * The open cell last found by coverers
+     */
+    private int lastCoverer;
+    /**
+     * Why propagation found the current position cannot be completed, null if it did not. Cleared by unmake.
+     */
+    private PruneReason contradiction;
 
-        grid = new char[height][width];
+    /**
+     * Where the model sends its events, null until a listener asks for it
+     */
+    private ModelEventBus events;
 
-        lasers = new ArrayList<>();
-        pillars = new ArrayList<>();
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                char temp = in.next().charAt(0);
-                grid[row][col] = temp;
 
-                if ("01234LX".indexOf(grid[row][col]) != -1) {
-                    pillars.add(new Coordinate(row, col));
-                }
-            }
-        }
-        in.close();
-        currentCol = -1;
-        currentRow = 0;
+    public LasersModel(String filename) throws FileNotFoundException {
+        load(filename);
     }
 
     /**
@@ -90,17 +147,119 @@ public class LasersModel extends Observable implements Configuration {
         this.width = other.width;
         this.height = other.height;
 
-        this.grid = new char[width][width];
+        this.board = new BitBoard(other.board);
+        this.clues = other.clues;
+
+        this.pillars = other.pillars;
+        this.needs = other.needs;
+        this.laserCells = Arrays.copyOf(other.laserCells, other.laserCount + 1);
+        this.laserCount = other.laserCount;
+        this.pillarIndex = other.pillarIndex;
+        this.pillarLasers = other.pillarLasers.clone();
+        this.unmet = other.unmet;
+        this.overfull = other.overfull;
+        this.conflicts = other.conflicts;
+        this.pillarHash = other.pillarHash;
+        this.currentCol = other.currentCol;
+        this.currentRow = other.currentRow;
+    }
+
+    /**
+     * Creates a safe from its cells, as they would be read from a file
+     *
+     * @param height the number of rows
+     * @param width  the number of columns
+     * @param cells  one character per cell, indexed by row * width + col
+     */
+    public LasersModel(int height, int width, char[] cells) {
+        setup(height, width, cells);
+    }
+
+    /**
+     * Reads a safe file into this model. The first number of the file is the number of rows and the second the
+     * number of columns, followed by one character per cell.
+     *
+     * @param filename the file to read in
+     * @throws FileNotFoundException if the file does not exist
+     */
+    private void load(String filename) throws FileNotFoundException {
+        SafeParser parsed = SafeParser.parse(filename);
+        setup(parsed.height, parsed.width, parsed.cells);
+    }
+
+    /**
+     * Sets this model up as a fresh safe with the given cells. Lasers among them are placed, anything that is
+     * neither a laser nor a pillar is an empty cell.
+     *
+     * @param height the number of rows
+     * @param width  the number of columns
+     * @param cells  one character per cell, indexed by row * width + col
+     */
+    private void setup(int height, int width, char[] cells) {
+        this.height = height;
+        this.width = width;
+
+        board = new BitBoard(height, width);
+        clues = new char[height * width];
+        frames = null;
+        trail = null;
+        trailSize = 0;
+        depth = 0;
+        contradiction = null;
+        laserCells = new int[height * width];
+        laserCount = 0;
+        pillars = new ArrayList<>();
         for (int row = 0; row < height; row++) {
             for (int col = 0; col < width; col++) {
-                this.grid[row][col] = other.grid[row][col];
+                char temp = cells[row * width + col];
+                if (temp == LASER) {
+                    laserCells[laserCount++] = row * width + col;
+                } else if ("01234X".indexOf(temp) != -1) {
+                    board.setPillar(row, col);
+                    clues[row * width + col] = temp;
+                    pillars.add(new Coordinate(row, col));
+                }
             }
         }
 
-        this.pillars = new ArrayList<>(other.pillars);
-        this.lasers = new ArrayList<>(other.lasers);
-        this.currentCol = other.currentCol;
-        this.currentRow = other.currentRow;
+        needs = new int[height * width];
+        pillarIndex = new int[height * width];
+        int numbered = 0;
+        for (int cell = 0; cell < height * width; cell++) {
+            needs[cell] = clues[cell] >= '0' && clues[cell] <= '4' ? clues[cell] - '0' : -1;
+            pillarIndex[cell] = needs[cell] >= 0 ? numbered++ : -1;
+        }
+        pillarLasers = new byte[numbered];
+        resetCounters();
+        for (int i = 0; i < laserCount; i++) {
+            setLaser(laserCells[i]);
+        }
+        currentCol = -1;
+        currentRow = 0;
+    }
+
+    /**
+     * A rectangle of this safe, keeping some of its cells and turning every other cell of the rectangle into an X
+     * pillar. Cells that share no beam and no numbered pillar with the rest of the safe behave exactly as they did
+     * before, as long as every free cell next to them is kept as well.
+     *
+     * @param keep the cells (row * width + col) to keep, all inside the rectangle
+     * @param top  the first row of the rectangle
+     * @param left the first column of the rectangle
+     * @param rows the number of rows of the rectangle
+     * @param cols the number of columns of the rectangle
+     * @return the smaller safe, of rows by cols, holding the lasers of this one that are on kept cells
+     */
+    public LasersModel restrict(int[] keep, int top, int left, int rows, int cols) {
+        char[] cells = new char[rows * cols];
+        Arrays.fill(cells, 'X');
+        for (int cell : keep) {
+            int r = cell / width;
+            int c = cell % width;
+            char grid = getGrid(r, c);
+            cells[(r - top) * cols + c - left] = grid == BEAM ? EMPTY : grid;
+        }
+        return new LasersModel(rows, cols, cells);
     }
 
     /**
@@ -120,11 +279,12 @@ public class LasersModel extends Observable implements Configuration {
      * @return true if position is valid, false if not
      */
     public boolean checkCoords(int r, int c) {
-        return !(r < 0 || r >= height || c < 0 || c >= height);
+        return !(r < 0 || r >= height || c < 0 || c >= width);
     }
 
     /**
-     * Adds a laser given a row and a column, and draws the beams from that coordinate
+     * Adds a laser given a row and a column, and draws the beams from that coordinate. Beams of other lasers that
+     * reached the coordinate now stop there.
      *
      * @param r the row to add the laser to
      * @param c the column to add the laser to
@@ -132,41 +292,34 @@ public class LasersModel extends Observable implements Configuration {
     public boolean add(int r, int c) {
         //If pillar or laser
         if (!checkCoords(r, c)) {
-            setChanged();
-            notifyObservers("Error adding laser at: (" + r + ", " + c + ")");
+            post(ModelEvent.at(ModelEvent.Kind.ADD_FAILED, r, c));
             return false;
-        } else if ("01234LX".indexOf(grid[r][c]) != -1) {
-            setChanged();
-            notifyObservers("Error adding laser at: (" + r + ", " + c + ")");
+        } else if (board.isPillar(r, c) || board.isLaser(r, c)) {
+            post(ModelEvent.at(ModelEvent.Kind.ADD_FAILED, r, c));
             return false;
         } else {
-            grid[r][c] = 'L';
-            lasers.add(new Coordinate(r, c));
-            setChanged();
-            notifyObservers("Laser added at: (" + r + ", " + c + ")");
+            setLaser(r * width + c);
+            addLaserCell(r * width + c);
+            post(ModelEvent.at(ModelEvent.Kind.LASER_ADDED, r, c, rayCells(r, c)));
             return true;
         }
     }
 
     /**
-     * Helper functon to run through the grid and run the beam drawing function when a laser is found.
+     * Helper functon to clear the beams and recast them from every laser on the grid. Add and remove keep the beams
+     * up to date themselves, so this is only needed to repair beams painted by hand with the directional beam
+     * functions.
      */
     public void updateBeams() {
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if (grid[row][col] == LASER) {
-
-                    leftBeam(row, col, BEAM);
-                    rightBeam(row, col, BEAM);
-                    upBeam(row, col, BEAM);
-                    downBeam(row, col, BEAM);
-                }
-            }
+        board.clearBeams();
+        for (int i = 0; i < laserCount; i++) {
+            board.rays(laserCells[i] / width, laserCells[i] % width, true);
         }
     }
 
     /**
-     * Removes a laser given a row and a column, and removes the beam from the laser
+     * Removes a laser given a row and a column, and removes the beam from the laser. Cells another laser still
+     * lights stay lit, and beams the laser stopped go on past it.
      *
      * @param r the row to remove the laser from
      * @param c the column to remove the laser from
@@ -175,29 +328,145 @@ public class LasersModel extends Observable implements Configuration {
         //If pillar or laser
 
         if (!checkCoords(r, c)) {
-            setChanged();
-            notifyObservers("Error removing laser at: (" + r + ", " + c + ")");
-        } else if (grid[r][c] != 'L') {
-            setChanged();
-            notifyObservers("Error removing laser at: (" + r + ", " + c + ")");
+            post(ModelEvent.at(ModelEvent.Kind.REMOVE_FAILED, r, c));
+        } else if (!board.isLaser(r, c)) {
+            post(ModelEvent.at(ModelEvent.Kind.REMOVE_FAILED, r, c));
         } else {
-            char t = '.';
-            grid[r][c] = t;
-            leftBeam(r, c, t);
-            rightBeam(r, c, t);
-            upBeam(r, c, t);
-            downBeam(r, c, t);
-            Coordinate coord = new Coordinate(r, c);
-            for (int iter = 0; iter < lasers.size(); iter++) {
-                if (lasers.get(iter).equals(coord)) {
-                    lasers.remove(iter);
+            int cell = r * width + c;
+            clearLaser(cell);
+            for (int iter = 0; iter < laserCount; iter++) {
+                if (laserCells[iter] == cell) {
+                    System.arraycopy(laserCells, iter + 1, laserCells, iter, laserCount - iter - 1);
+                    laserCount--;
                     break;
                 }
             }
-            setChanged();
-            notifyObservers("Laser removed at: (" + r + ", " + c + ")");
+            post(ModelEvent.at(ModelEvent.Kind.LASER_REMOVED, r, c, rayCells(r, c)));
+        }
+
+    }
+
+    /**
+     * Puts a laser on the board with its beams, keeping the counters up to date
+     *
+     * @param cell the cell to put the laser on, which holds none
+     */
+    private void setLaser(int cell) {
+        int r = cell / width;
+        int c = cell % width;
+        conflicts += sightPairs(r, c);
+        board.crossingRays(r, c, false);
+        board.setLaser(r, c);
+        board.rays(r, c, true);
+        pillarsAround(cell, 1);
+    }
+
+    /**
+     * Takes a laser and its beams off the board, keeping the counters up to date
+     *
+     * @param cell the cell holding the laser
+     */
+    private void clearLaser(int cell) {
+        int r = cell / width;
+        int c = cell % width;
+        board.rays(r, c, false);
+        board.clearLaser(r, c);
+        board.crossingRays(r, c, true);
+        conflicts -= sightPairs(r, c);
+        pillarsAround(cell, -1);
+    }
+
+    /**
+     * How many more pairs of lasers see each other once a laser goes on a cell without one. The new laser pairs up
+     * with the nearest laser in every direction, but splits a pair it lands between, so a row or column with a laser
+     * on either side gains one pair.
+     *
+     * @param r the row of the cell
+     * @param c the column of the cell
+     * @return the number of pairs gained
+     */
+    private int sightPairs(int r, int c) {
+        int left = board.leftStop(r, c);
+        int right = board.rightStop(r, c);
+        int up = board.upStop(r, c);
+        int down = board.downStop(r, c);
+        boolean l = left >= 0 && board.isLaser(r, left);
+        boolean rt = right < width && board.isLaser(r, right);
+        boolean u = up >= 0 && board.isLaser(up, c);
+        boolean d = down < height && board.isLaser(down, c);
+        return (l || rt ? 1 : 0) + (u || d ? 1 : 0);
+    }
+
+    /**
+     * Adds to the laser count of every numbered pillar next to a cell
+     *
+     * @param cell  the cell a laser was put on or taken off
+     * @param delta 1 for a laser put on, -1 for one taken off
+     */
+    private void pillarsAround(int cell, int delta) {
+        int c = cell % width;
+        if (c > 0) pillarChanged(cell - 1, delta);
+        if (c < width - 1) pillarChanged(cell + 1, delta);
+        if (cell >= width) pillarChanged(cell - width, delta);
+        if (cell + width < height * width) pillarChanged(cell + width, delta);
+    }
+
+    private void pillarChanged(int cell, int delta) {
+        int need = needs[cell];
+        if (need < 0) {
+            return;
+        }
+        int before = pillarLasers[pillarIndex[cell]];
+        int after = before + delta;
+        pillarLasers[pillarIndex[cell]] = (byte) after;
+        pillarHash ^= pillarKey(cell, before) ^ pillarKey(cell, after);
+        if (before == need) unmet++;
+        if (after == need) unmet--;
+        if (before > need) overfull--;
+        if (after > need) overfull++;
+    }
+
+    /**
+     * The number of lasers next to a numbered pillar
+     */
+    private int lasersAround(int cell) {
+        return pillarLasers[pillarIndex[cell]];
+    }
+
+    /**
+     * Appends a cell to the laser list, growing it if it is full
+     */
+    private void addLaserCell(int cell) {
+        if (laserCount == laserCells.length) {
+            laserCells = Arrays.copyOf(laserCells, 2 * laserCount + 1);
+        }
+        laserCells[laserCount++] = cell;
+    }
+
+    /**
+     * Sets the counters to those of a board without lasers
+     */
+    private void resetCounters() {
+        Arrays.fill(pillarLasers, (byte) 0);
+        unmet = 0;
+        pillarHash = 0L;
+        for (int cell = 0; cell < needs.length; cell++) {
+            if (needs[cell] > 0) {
+                unmet++;
+            }
+            if (needs[cell] >= 0) {
+                pillarHash ^= pillarKey(cell, 0);
+            }
         }
+        overfull = 0;
+        conflicts = 0;
+    }
 
+    /**
+     * The Zobrist key of a numbered pillar with a number of lasers next to it, numbered after the keys of the board
+     */
+    private long pillarKey(int cell, int lasers) {
+        return Zobrist.key(2L * height * width + 5L * cell + lasers);
     }
 
     /**
@@ -222,24 +491,12 @@ public class LasersModel extends Observable implements Configuration {
      * @return false unless there are 2 lasers touching, then returns true
      */
     public boolean leftBeam(int r, int c, char type) {
-        if (c == 0) {
-            return false;
+        int stop = board.leftStop(r, c);
+        if (type == 'v') {
+            return stop >= 0 && board.isLaser(r, stop);
         }
-        for (int leftIterator = c - 1; leftIterator >= 0; leftIterator--) {
-            if (type == 'v') {
-                if (grid[r][leftIterator] == LASER) {
-                    return true;
-                } else if ("01234X".indexOf(grid[r][leftIterator]) != -1) {
-                    return false;
-                }
-            } else {
-                if ("01234LX".indexOf(grid[r][leftIterator]) != -1) {
-                    break;
-                } else {
-                    grid[r][leftIterator] = type;
-                }
-            }
-
+        for (int col = stop + 1; col < c; col++) {
+            paint(r, col, type);
         }
         return false;
     }
@@ -254,24 +511,12 @@ public class LasersModel extends Observable implements Configuration {
      * @return false unless there are 2 lasers touching, then returns true
      */
     public boolean rightBeam(int r, int c, char type) {
-        if (c == width - 1) {
-            return false;
+        int stop = board.rightStop(r, c);
+        if (type == 'v') {
+            return stop < width && board.isLaser(r, stop);
         }
-        //right
-        for (int rightIterator = c + 1; rightIterator < width; rightIterator++) {
-            if (type == 'v') {
-                if (grid[r][rightIterator] == LASER) {
-                    return true;
-                } else if ("01234X".indexOf(grid[r][rightIterator]) != -1) {
-                    return false;
-                }
-            } else {
-                if ("01234LX".indexOf(grid[r][rightIterator]) != -1) {
-                    break;
-                } else {
-                    grid[r][rightIterator] = type;
-                }
-            }
+        for (int col = c + 1; col < stop; col++) {
+            paint(r, col, type);
         }
         return false;
     }
@@ -286,24 +531,12 @@ public class LasersModel extends Observable implements Configuration {
      * @return false unless there are 2 lasers touching, then returns true
      */
     public boolean upBeam(int r, int c, char type) {
-        if (r == 0) {
-            return false;
+        int stop = board.upStop(r, c);
+        if (type == 'v') {
+            return stop >= 0 && board.isLaser(stop, c);
         }
-        //up
-        for (int upIterator = r - 1; upIterator >= 0; upIterator--) {
-            if (type == 'v') {
-                if (grid[upIterator][c] == LASER) {
-                    return true;
-                } else if ("01234X".indexOf(grid[upIterator][c]) != -1) {
-                    return false;
-                }
-            } else {
-                if ("01234LX".indexOf(grid[upIterator][c]) != -1) {
-                    break;
-                } else {
-                    grid[upIterator][c] = type;
-                }
-            }
+        for (int row = stop + 1; row < r; row++) {
+            paint(row, c, type);
         }
         return false;
     }
@@ -318,28 +551,31 @@ public class LasersModel extends Observable implements Configuration {
      * @return false unless there are 2 lasers touching, then returns true
      */
     public boolean downBeam(int r, int c, char type) {
-        if (r == height - 1) {
-            return false;
+        int stop = board.downStop(r, c);
+        if (type == 'v') {
+            return stop < height && board.isLaser(stop, c);
         }
-        //down
-        for (int downIterator = r + 1; downIterator < height; downIterator++) {
-            if (type == 'v') {
-                if (grid[downIterator][c] == LASER) {
-                    return true;
-                } else if ("01234X".indexOf(grid[downIterator][c]) != -1) {
-                    return false;
-                }
-            } else {
-                if ("01234LX".indexOf(grid[downIterator][c]) != -1) {
-                    break;
-                } else {
-                    grid[downIterator][c] = type;
-                }
-            }
+        for (int row = r + 1; row < stop; row++) {
+            paint(row, c, type);
         }
         return false;
     }
 
+    /**
+     * Adds or takes off one ray on a single cell for the directional beam functions
+     *
+     * @param r    the row
+     * @param c    the column
+     * @param type BEAM to add, anything else to take off
+     */
+    private void paint(int r, int c, char type) {
+        if (type == BEAM) {
+            board.addRay(r, c);
+        } else {
+            board.removeRay(r, c);
+        }
+    }
+
     /**
      * A function to check around a pillar and figure out if there are a valid number of lasers around it
      *
@@ -348,23 +584,7 @@ public class LasersModel extends Observable implements Configuration {
      * @return the number of lasers around the pillar
      */
     public int checkNeighbors(int r, int c) {
-        int laserCount = 0;
-        // check left
-        if (c > 0) {
-            if (grid[r][c - 1] == 'L') laserCount++;
-        }
-        // check right
-        if (c < width - 1) {
-            if (grid[r][c + 1] == 'L') laserCount++;
-        }
-        // check up
-        if (r > 0) {
-            if (grid[r - 1][c] == 'L') laserCount++;
-        }
-        if (r < height - 1) {
-            if (grid[r + 1][c] == 'L') laserCount++;
-        }
-        return laserCount;
+        return board.countLaserNeighbors(r, c);
     }
 
 
@@ -385,43 +605,86 @@ public class LasersModel extends Observable implements Configuration {
         for (int row = 0; row < height; row++) {
             for (int col = 0; col < width; col++) {
                 //Checks no aligned lasers
-                if (grid[row][col] == LASER) {
+                if (board.isLaser(row, col)) {
                     if (!checkBeams(row, col)) {
-                        setChanged();
-                        notifyObservers("Error verifying at: (" + row + ", " + col + ")");
+                        verifyFailed(row, col);
                         return;
                     }
                     //Checks correct amount of emitters per pillar
-                } else if ("01234X".indexOf(grid[row][col]) != -1) {
-                    int neighbors = checkNeighbors(row, col);
-                    if (!(grid[row][col] == 'X')) {
+                } else if (board.isPillar(row, col)) {
+                    char clue = clues[row * width + col];
+                    if (clue != 'X') {
 
-                        if (neighbors != Integer.parseInt(grid[row][col] + "")) {
-                            setChanged();
-                            notifyObservers("Error verifying at: (" + row + ", " + col + ")");
+                        if (checkNeighbors(row, col) != Character.getNumericValue(clue)) {
+                            verifyFailed(row, col);
                             return;
                         }
                     }
                     //checks no more empties
-                } else if (grid[row][col] == EMPTY) {
-                    setChanged();
-                    notifyObservers("Error verifying at: (" + row + ", " + col + ")");
+                } else if (!board.isBeam(row, col)) {
+                    verifyFailed(row, col);
                     return;
                 }
             }
 
         }
-        setChanged();
-        notifyObservers("Safe is fully verified!");
+        post(ModelEvent.at(ModelEvent.Kind.VERIFIED, -1, -1));
+    }
+
+    private void verifyFailed(int row, int col) {
+        post(ModelEvent.at(ModelEvent.Kind.VERIFY_FAILED, row, col, new int[]{row * width + col}));
     }
 
     /**
-     * A utility method that indicates the model has changed and
-     * notifies observers
+     * A utility method that asks the listeners to show the model again
      */
     public void announceChange() {
-        setChanged();
-        notifyObservers();
+        post(ModelEvent.board(ModelEvent.Kind.REFRESH));
+    }
+
+    /**
+     * The events of the model, created on first use so the copies made by the solvers carry none
+     *
+     * @return the bus the model sends its events to
+     */
+    public ModelEventBus getEvents() {
+        if (events == null) {
+            events = new ModelEventBus();
+        }
+        return events;
+    }
+
+    private void post(ModelEvent event) {
+        if (events != null) {
+            events.post(event);
+        }
+    }
+
+    /**
+     * The cells a laser on a cell lights or stops lighting: the cell and every cell up to the next pillar or the edge
+     * in each direction
+     *
+     * @param r the row of the laser
+     * @param c the column of the laser
+     * @return the cells, indexed by row * width + col
+     */
+    private int[] rayCells(int r, int c) {
+        int[] cells = new int[height + width - 1];
+        int count = 0;
+        cells[count++] = r * width + c;
+        for (int row = r - 1; row >= 0 && !board.isPillar(row, c); row--) {
+            cells[count++] = row * width + c;
+        }
+        for (int row = r + 1; row < height && !board.isPillar(row, c); row++) {
+            cells[count++] = row * width + c;
+        }
+        for (int col = c - 1; col >= 0 && !board.isPillar(r, col); col--) {
+            cells[count++] = r * width + col;
+        }
+        for (int col = c + 1; col < width && !board.isPillar(r, col); col++) {
+            cells[count++] = r * width + col;
+        }
+        return Arrays.copyOf(cells, count);
     }
 
     /**
@@ -447,10 +710,17 @@ public class LasersModel extends Observable implements Configuration {
      *
      * @param row the row of the grid to check
      * @param col the column of the grid to check
-     * @return char pertaining to the value at grid[row][col]
+     * @return char pertaining to the value at row,col
      */
     public char getGrid(int row, int col) {
-        return this.grid[row][col];
+        if (board.isPillar(row, col)) {
+            return clues[row * width + col];
+        } else if (board.isLaser(row, col)) {
+            return LASER;
+        } else if (board.isBeam(row, col)) {
+            return BEAM;
+        }
+        return EMPTY;
     }
 
     /**
@@ -459,6 +729,10 @@ public class LasersModel extends Observable implements Configuration {
      * @return Arraylist containing coordinate pairs for the location of the placed lasers
      */
     public ArrayList<Coordinate> getLasers() {
+        ArrayList<Coordinate> lasers = new ArrayList<>(laserCount);
+        for (int i = 0; i < laserCount; i++) {
+            lasers.add(new Coordinate(laserCells[i] / width, laserCells[i] % width));
+        }
         return lasers;
     }
 
@@ -466,140 +740,544 @@ public class LasersModel extends Observable implements Configuration {
      * Helper function that resets all lasers and beams to their default empty state
      */
     public void reset() {
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                if ("01234X".indexOf(grid[row][col]) == -1) {
-                    grid[row][col] = EMPTY;
-                }
-            }
-        }
+        board.clearLasers();
+        board.clearBeams();
+        board.clearBlocked();
+        resetCounters();
+        contradiction = null;
         currentCol = -1;
         currentRow = 0;
-        lasers = new ArrayList<>();
+        laserCount = 0;
+        depth = 0;
+        trailSize = 0;
+        post(ModelEvent.board(ModelEvent.Kind.RELOADED));
     }
 
     @Override
     public String toString() {
-        String result = "  ";
-        // Creates labels for the top columns
-        for (int i = 0; i < width + (width - 1); i++) {
-            if (i % 2 == 0) result += i / 2 + " ";
-        }
-        result += "\n  ";
-        // Creates dividers for the top part of the Laser puzzle
-        for (int i = 0; i < width + (width - 1); i++) {
-            result += "-";
-        }
-        result += "\n";
-        // nested for loops to generate the visible part of the grid
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                // this if creates the row numbers and left hand divider
-                if (col == 0) {
-                    result += row + "" + "|";
-                }
+        return BoardRenderer.toString(this);
+    }
 
-                result += (grid[row][col]);
+    @Override
+    public Collection<Configuration> getSuccessors() {
+        ArrayList<Configuration> configList = new ArrayList<>(2);
+        successors().forEachRemaining(configList::add);
+        return configList;
+    }
 
-                // this if adds spacing after every item gets placed in the puzzle
-                if (col >= 0 && col < width - 1) {
-                    result += " ";
-                }
+    /**
+     * The successors moving the cursor on to the next cell, built only as the search asks for them: first the one
+     * with a laser on that cell, if one can go there, then the one leaving it without a laser. This model is not
+     * changed.
+     *
+     * @return the successors, valid and invalid
+     */
+    @Override
+    public Iterator<Configuration> successors() {
+        return new Successors(currentRow * width + currentCol + 1);
+    }
+
+    /**
+     * The lazy successors of this model
+     */
+    private class Successors implements Iterator<Configuration> {
+        /**
+         * The cell the successors decide on
+         */
+        private final int cell;
+        /**
+         * 0 while the laser successor is still to come, 1 while only the other one is, 2 once both are handed out
+         */
+        private int stage;
+
+        Successors(int cell) {
+            this.cell = cell;
+            if (cell >= height * width) {
+                stage = 2;
+            } else if (board.isPillar(cell / width, cell % width) || board.isLaser(cell / width, cell % width)) {
+                stage = 1;
+            }
+        }
 
+        @Override
+        public boolean hasNext() {
+            return stage < 2;
+        }
+
+        @Override
+        public Configuration next() {
+            if (stage == 2) {
+                throw new NoSuchElementException();
             }
-            // new line after running through the whole X line
-            if (row != height - 1) {
-                result += "\n";
+            LasersModel child = new LasersModel(LasersModel.this);
+            child.currentRow = cell / width;
+            child.currentCol = cell % width;
+            if (stage++ == 0) {
+                child.setLaser(cell);
+                child.addLaserCell(cell);
+                PruneReason dead = child.deadAround(cell);
+                child.contradiction = dead != null ? dead : child.deadInSight(cell);
+            } else if (board.isOpen(cell / width, cell % width)) {
+                // the cursor has passed this cell, so no laser can go there any more
+                child.board.setBlocked(cell / width, cell % width);
+                child.contradiction = child.deadAround(cell);
             }
+            return child;
         }
-        return result;
     }
 
     @Override
-    public Collection<Configuration> getSuccessors() {
-        if (currentCol == width - 1) {
-            currentRow++;
-            currentCol = 0;
-        } else {
-            currentCol++;
-        }
-        if(currentRow > height) {
-            return new ArrayList<Configuration>();
+    public boolean isValid() {
+        //No intersecting beams, not too many emitters on pillars
+        return contradiction == null && conflicts == 0 && overfull == 0;
+    }
+
+    @Override
+    public PruneReason pruneReason() {
+        if (contradiction != null) {
+            return contradiction;
+        } else if (overfull > 0) {
+            return PruneReason.PILLAR_OVER_COUNT;
+        } else if (conflicts > 0) {
+            return PruneReason.BEAM_CONFLICT;
         }
+        return null;
+    }
 
+    @Override
+    public boolean isGoal() {
+        return isValid() && unmet == 0 && board.isFullyCovered();
+    }
 
+    /**
+     * The next cell the search will decide on, the first open cell after the cursor in row-major order. Every cell
+     * before the cursor has already been decided.
+     *
+     * @return the next cell, or height * width once every cell has been decided
+     */
+    private int nextCell() {
+        return board.nextOpen(currentRow * width + currentCol + 1);
+    }
 
-        ArrayList<Configuration> configList = new ArrayList<>();
-        LasersModel model1 = new LasersModel(this);
+    @Override
+    public int choices() {
+        return nextCell() < height * width ? 2 : 0;
+    }
 
-        if(model1.add(currentRow, currentCol)) {
-            model1.updateBeams();
-            configList.add(model1);
+    /**
+     * Decides the next open cell, placing a laser on it for choice 0 and blocking it for choice 1, then applies
+     * every move the pillars and the uncovered cells force as a result
+     *
+     * @param choice the choice to make
+     */
+    @Override
+    public void make(int choice) {
+        int cell = nextCell();
+        beginMake();
+        currentRow = cell / width;
+        currentCol = cell % width;
+        if (choice == 0) {
+            placeLaser(cell);
+        } else {
+            block(cell);
         }
-        LasersModel model2 = new LasersModel(this);
-        model2.updateBeams();
-        configList.add(model2);
-
-        return configList;
+        propagate();
+    }
 
+    /**
+     * Every cell is a decision. For an uncovered cell the choices are the open cells that could light it, for a
+     * pillar that still lacks lasers they are its open neighbors.
+     *
+     * @return the number of cells
+     */
+    @Override
+    public int decisionCount() {
+        return height * width;
     }
 
     @Override
-    public boolean isValid() {
+    public int choices(int decision) {
+        if (frames == null) {
+            allocateSearchState();
+        }
+        return options(decision);
+    }
 
+    /**
+     * Satisfies a decision with the laser given by the choice. Every option before that one is blocked, so no two
+     * choices ever lead to the same position.
+     *
+     * @param decision the uncovered cell or unsatisfied pillar
+     * @param choice   which of its options gets the laser
+     */
+    @Override
+    public void make(int decision, int choice) {
+        beginMake();
+        options(decision);
+        for (int i = 0; i < choice; i++) {
+            block(optionCells[i]);
+        }
+        placeLaser(optionCells[choice]);
+        propagate();
+    }
 
-//No intersecting Beams
-        for (Coordinate l : lasers) {
-            if (!checkBeams(l.getRow(), l.getCol())) {
-                return false;
+    /**
+     * Lists the options of a decision into optionCells
+     *
+     * @param decision the cell
+     * @return the number of options, 0 if the cell is covered or the pillar has all its lasers
+     */
+    private int options(int decision) {
+        int r = decision / width;
+        int c = decision % width;
+        int count = 0;
+        if (board.isPillar(r, c)) {
+            if (needs[decision] < 0 || lasersAround(decision) >= needs[decision]) {
+                return 0;
             }
+            if (c > 0 && board.isOpen(r, c - 1)) optionCells[count++] = decision - 1;
+            if (c < width - 1 && board.isOpen(r, c + 1)) optionCells[count++] = decision + 1;
+            if (r > 0 && board.isOpen(r - 1, c)) optionCells[count++] = decision - width;
+            if (r < height - 1 && board.isOpen(r + 1, c)) optionCells[count++] = decision + width;
+            return count;
+        } else if (board.isLaser(r, c) || board.isBeam(r, c)) {
+            return 0;
+        }
+        if (board.isOpen(r, c)) {
+            optionCells[count++] = decision;
         }
+        int right = board.rightStop(r, c);
+        for (int col = board.leftStop(r, c) + 1; col < right; col++) {
+            if (col != c && board.isOpen(r, col)) {
+                optionCells[count++] = r * width + col;
+            }
+        }
+        int down = board.downStop(r, c);
+        for (int row = board.upStop(r, c) + 1; row < down; row++) {
+            if (row != r && board.isOpen(row, c)) {
+                optionCells[count++] = row * width + c;
+            }
+        }
+        return count;
+    }
 
+    /**
+     * Pushes a frame for a new make, allocating the search state on the first one
+     */
+    private void beginMake() {
+        if (frames == null) {
+            allocateSearchState();
+        }
+        frames[2 * depth] = trailSize;
+        frames[2 * depth + 1] = currentRow * width + currentCol;
+        depth++;
+        if (depth == 1) {
+            // forced moves of the starting position are found along with the first decision
+            for (int i = height * width - 1; i >= 0; i--) {
+                enqueue(i);
+            }
+        }
+    }
 
-//Not too many emitters on pillars
-        for (Coordinate p : pillars) {
-            if (grid[p.getRow()][p.getCol()] != 'X') {
-                int temp = Character.getNumericValue(grid[p.getRow()][p.getCol()]);
+    private void allocateSearchState() {
+        frames = new int[2 * (height * width + 1)];
+        trail = new int[height * width];
+        work = new int[height * width];
+        queued = new boolean[height * width];
+        optionCells = new int[height + width + 2];
+        litCells = new int[height + width];
+    }
 
-                if (checkNeighbors(p.getRow(), p.getCol()) > temp) {
-                    return false;
-                }
+    @Override
+    public void unmake() {
+        depth--;
+        int mark = frames[2 * depth];
+        int cursor = frames[2 * depth + 1];
+        while (trailSize > mark) {
+            int entry = trail[--trailSize];
+            int cell = entry & CELL_MASK;
+            int r = cell / width;
+            int c = cell % width;
+            if (entry == (LASER_ENTRY | cell)) {
+                // lasers of the search never see each other or cut another beam
+                board.rays(r, c, false);
+                board.clearLaser(r, c);
+                pillarsAround(cell, -1);
+                laserCount--;
+            } else {
+                board.clearBlocked(r, c);
             }
         }
+        currentRow = cursor / width;
+        currentCol = cursor % width;
+        contradiction = null;
+    }
+
+    /**
+     * Places a laser during the search, logging it on the trail
+     *
+     * @param cell the open cell to place the laser on
+     */
+    private void placeLaser(int cell) {
+        int r = cell / width;
+        int c = cell % width;
+        if (trailSize == trail.length) {
+            trail = Arrays.copyOf(trail, 2 * trail.length);
+        }
+        // an open cell is lit by no laser, so the new laser sees none and cuts no beam
+        board.setLaser(r, c);
+        pillarsAround(cell, 1);
+        addLaserCell(cell);
+        trail[trailSize++] = LASER_ENTRY | cell;
+        int count = board.castRays(r, c, litCells, 0);
+        closed(cell);
+        for (int i = 0; i < count; i++) {
+            closed(litCells[i]);
+        }
+    }
+
+    /**
+     * Rules out a laser on a cell during the search, logging it on the trail
+     *
+     * @param cell the open cell to block
+     */
+    private void block(int cell) {
+        if (trailSize == trail.length) {
+            trail = Arrays.copyOf(trail, 2 * trail.length);
+        }
+        board.setBlocked(cell / width, cell % width);
+        trail[trailSize++] = BLOCK_ENTRY | cell;
+        closed(cell);
+    }
 
-        return true;
+    /**
+     * Queues everything that has to be looked at again once a cell is no longer open: the pillars next to it and
+     * the cells that could see it, including the cell itself
+     *
+     * @param cell the cell that was decided
+     */
+    private void closed(int cell) {
+        int r = cell / width;
+        int c = cell % width;
+        if (c > 0 && board.isPillar(r, c - 1)) enqueue(cell - 1);
+        if (c < width - 1 && board.isPillar(r, c + 1)) enqueue(cell + 1);
+        if (r > 0 && board.isPillar(r - 1, c)) enqueue(cell - width);
+        if (r < height - 1 && board.isPillar(r + 1, c)) enqueue(cell + width);
+        enqueue(cell);
+        int right = board.rightStop(r, c);
+        for (int col = board.leftStop(r, c) + 1; col < right; col++) {
+            enqueue(r * width + col);
+        }
+        int down = board.downStop(r, c);
+        for (int row = board.upStop(r, c) + 1; row < down; row++) {
+            enqueue(row * width + c);
+        }
+    }
 
+    private void enqueue(int cell) {
+        if (!queued[cell]) {
+            queued[cell] = true;
+            work[workSize++] = cell;
+        }
+    }
 
+    /**
+     * Applies forced moves until none are left or the position turns out to be impossible. A pillar with as many
+     * lasers as it needs blocks its open neighbors, a pillar that needs all of its open neighbors gets lasers on
+     * them, and an uncovered cell that only one open cell can still light gets a laser on that cell. A pillar that
+     * can no longer reach its number and an uncovered cell nothing can light any more are dead ends.
+     */
+    private void propagate() {
+        while (workSize > 0 && contradiction == null) {
+            int cell = work[--workSize];
+            queued[cell] = false;
+            int r = cell / width;
+            int c = cell % width;
+            if (board.isPillar(r, c)) {
+                checkPillar(r, c);
+            } else if (!board.isLaser(r, c) && !board.isBeam(r, c)) {
+                int coverers = coverers(r, c, 2);
+                if (coverers == 0) {
+                    contradiction = PruneReason.DEAD_CELL;
+                } else if (coverers == 1) {
+                    placeLaser(lastCoverer);
+                }
+            }
+        }
+        while (workSize > 0) {
+            queued[work[--workSize]] = false;
+        }
     }
 
-    @Override
-    public boolean isGoal() {
+    /**
+     * Applies the forced moves around a single pillar
+     *
+     * @param r the row of the pillar
+     * @param c the column of the pillar
+     */
+    private void checkPillar(int r, int c) {
+        int need = needs[r * width + c];
+        if (need < 0) {
+            return;
+        }
+        int placed = lasersAround(r * width + c);
+        if (placed > need) {
+            contradiction = PruneReason.PILLAR_OVER_COUNT;
+            return;
+        }
+        int open = 0;
+        if (c > 0 && board.isOpen(r, c - 1)) open++;
+        if (c < width - 1 && board.isOpen(r, c + 1)) open++;
+        if (r > 0 && board.isOpen(r - 1, c)) open++;
+        if (r < height - 1 && board.isOpen(r + 1, c)) open++;
+        if (placed + open < need) {
+            contradiction = PruneReason.PILLAR_UNREACHABLE;
+            return;
+        }
+        if (open == 0 || (placed != need && placed + open != need)) {
+            return;
+        }
+        boolean place = placed != need;
+        int cell = r * width + c;
+        if (c > 0 && board.isOpen(r, c - 1)) decide(cell - 1, place);
+        if (c < width - 1 && board.isOpen(r, c + 1)) decide(cell + 1, place);
+        if (r > 0 && board.isOpen(r - 1, c)) decide(cell - width, place);
+        if (r < height - 1 && board.isOpen(r + 1, c)) decide(cell + width, place);
+    }
 
-        if(!(currentCol==width-1&&currentRow==height-1)){
-            return false;
+    /**
+     * Checks whether closing a cell left a dead end behind: a pillar next to it that can no longer get enough
+     * lasers, or an uncovered cell in its line of sight, the cell itself included, that nothing can light any more
+     *
+     * @param cell the cell that was just decided
+     * @return why the position can no longer be completed, or null if it still can
+     */
+    private PruneReason deadAround(int cell) {
+        int r = cell / width;
+        int c = cell % width;
+        if ((c > 0 && pillarShort(r, c - 1)) || (c < width - 1 && pillarShort(r, c + 1))
+                || (r > 0 && pillarShort(r - 1, c)) || (r < height - 1 && pillarShort(r + 1, c))) {
+            return PruneReason.PILLAR_UNREACHABLE;
+        }
+        int right = board.rightStop(r, c);
+        for (int col = board.leftStop(r, c) + 1; col < right; col++) {
+            if (unreachable(r, col)) {
+                return PruneReason.DEAD_CELL;
+            }
+        }
+        int down = board.downStop(r, c);
+        for (int row = board.upStop(r, c) + 1; row < down; row++) {
+            if (row != r && unreachable(row, c)) {
+                return PruneReason.DEAD_CELL;
+            }
         }
-        if(!isValid()){
+        return null;
+    }
+
+    /**
+     * Checks deadAround for every cell a laser lights up
+     *
+     * @param cell the cell of the laser
+     * @return why the position can no longer be completed, or null if it still can
+     */
+    private PruneReason deadInSight(int cell) {
+        int r = cell / width;
+        int c = cell % width;
+        int right = board.rightStop(r, c);
+        for (int col = board.leftStop(r, c) + 1; col < right; col++) {
+            PruneReason dead = col != c ? deadAround(r * width + col) : null;
+            if (dead != null) {
+                return dead;
+            }
+        }
+        int down = board.downStop(r, c);
+        for (int row = board.upStop(r, c) + 1; row < down; row++) {
+            PruneReason dead = row != r ? deadAround(row * width + c) : null;
+            if (dead != null) {
+                return dead;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Can a numbered pillar no longer get as many lasers as it needs?
+     */
+    private boolean pillarShort(int r, int c) {
+        int need = needs[r * width + c];
+        if (need < 0) {
             return false;
         }
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
+        int open = 0;
+        if (c > 0 && board.isOpen(r, c - 1)) open++;
+        if (c < width - 1 && board.isOpen(r, c + 1)) open++;
+        if (r > 0 && board.isOpen(r - 1, c)) open++;
+        if (r < height - 1 && board.isOpen(r + 1, c)) open++;
+        return lasersAround(r * width + c) + open < need;
+    }
 
+    /**
+     * Is a cell uncovered with no open cell left that could light it?
+     */
+    private boolean unreachable(int r, int c) {
+        return !board.isPillar(r, c) && !board.isLaser(r, c) && !board.isBeam(r, c) && coverers(r, c, 1) == 0;
+    }
 
-                if (grid[row][col] == EMPTY) {
-                    return false;
-                }
-                if ("01234X".indexOf(grid[row][col]) != -1) {
-                    if (grid[row][col] != 'X') {
-                        int temp = Character.getNumericValue(grid[row][col]);
-                        if (checkNeighbors(row, col) != temp) {
-                            return false;
-                        }
-                    }
+    private void decide(int cell, boolean place) {
+        if (place) {
+            placeLaser(cell);
+        } else {
+            block(cell);
+        }
+    }
 
-                }
+    /**
+     * Counts the open cells that could still light an uncovered cell, the cell itself included. The last one found
+     * is left in lastCoverer.
+     *
+     * @param r     the row of the cell
+     * @param c     the column of the cell
+     * @param limit stop counting once this many have been found
+     * @return the number of open cells found, at most limit
+     */
+    private int coverers(int r, int c, int limit) {
+        int count = 0;
+        if (board.isOpen(r, c)) {
+            lastCoverer = r * width + c;
+            count++;
+        }
+        int right = board.rightStop(r, c);
+        for (int col = board.leftStop(r, c) + 1; col < right && count < limit; col++) {
+            if (col != c && board.isOpen(r, col)) {
+                lastCoverer = r * width + col;
+                count++;
+            }
+        }
+        int down = board.downStop(r, c);
+        for (int row = board.upStop(r, c) + 1; row < down && count < limit; row++) {
+            if (row != r && board.isOpen(row, c)) {
+                lastCoverer = row * width + c;
+                count++;
             }
         }
-        return true;
+        return count;
+    }
+
+    /**
+     * Hashes what is left to solve: which cells are still dark, which of those can still take a laser, and how many
+     * lasers each numbered pillar has. Lasers placed in a different order, or even different lasers lighting the same
+     * cells, leave the same problem behind and hash the same.
+     *
+     * @return the hash
+     */
+    @Override
+    public long hash() {
+        return board.getHash() ^ pillarHash;
+    }
+
+    @Override
+    public LasersModel snapshot() {
+        return new LasersModel(this);
     }
 
     /**
@@ -609,28 +1287,8 @@ public class LasersModel extends Observable implements Configuration {
      * @throws FileNotFoundException
      */
     public void updateModel(String filename) throws FileNotFoundException {
-        Scanner in;
-        in = new Scanner(new File(filename));
-
-        width = Integer.parseInt(in.next());
-        height = Integer.parseInt(in.next());
-        pillars = new ArrayList<>();
-        grid = new char[height][width];
-
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                char temp = in.next().charAt(0);
-                grid[row][col] = temp;
-                if ("01234LX".indexOf(grid[row][col]) != -1) {
-                    pillars.add(new Coordinate(row, col));
-                }
-            }
-        }
-        in.close();
-        lasers = new ArrayList<>();
-        currentCol = -1;
-        currentRow = 0;
-
+        load(filename);
+        post(ModelEvent.board(ModelEvent.Kind.RELOADED));
     }
 
     /**
@@ -642,21 +1300,26 @@ public class LasersModel extends Observable implements Configuration {
 
         this.width = other.width;
         this.height = other.height;
-        this.grid = new char[width][width];
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                this.grid[row][col] = other.grid[row][col];
-            }
-        }
+        this.board = new BitBoard(other.board);
+        this.clues = other.clues;
 
         this.pillars = other.pillars;
-        this.lasers = other.lasers;
+        this.needs = other.needs;
+        this.laserCells = Arrays.copyOf(other.laserCells, other.laserCount + 1);
+        this.laserCount = other.laserCount;
+        this.pillarIndex = other.pillarIndex;
+        this.pillarLasers = other.pillarLasers.clone();
+        this.unmet = other.unmet;
+        this.overfull = other.overfull;
+        this.conflicts = other.conflicts;
+        this.pillarHash = other.pillarHash;
+        this.contradiction = null;
+        this.trail = null;
+        this.frames = null;
+        this.trailSize = 0;
+        this.depth = 0;
         this.currentCol = other.currentCol;
         this.currentRow = other.currentRow;
-
-    }
-
-    private void displayHelp() {
-        notifyObservers("");
+        post(ModelEvent.board(ModelEvent.Kind.RELOADED));
     }
 }
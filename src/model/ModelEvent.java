@@ -0,0 +1,131 @@
+package model;
+
+/**
+ * Something that happened to a LasersModel, as delivered to the listeners
+ * of its ModelEventBus. An event knows the cell it is about and the cells
+ * whose look may have changed because of it, so a view can redraw just
+ * those.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+public final class ModelEvent {
+
+    /**
+     * The kinds of events a model sends
+     */
+    public enum Kind {
+        LASER_ADDED, LASER_REMOVED, ADD_FAILED, REMOVE_FAILED, VERIFY_FAILED, VERIFIED,
+        /**
+         * The model now holds another safe, or was reset
+         */
+        RELOADED,
+        /**
+         * Nothing changed, but the model should be shown again
+         */
+        REFRESH
+    }
+
+    private static final int[] NONE = new int[0];
+
+    private final Kind kind;
+    private final int row;
+    private final int col;
+    private final int[] cells;
+
+    private ModelEvent(Kind kind, int row, int col, int[] cells) {
+        this.kind = kind;
+        this.row = row;
+        this.col = col;
+        this.cells = cells;
+    }
+
+    /**
+     * An event about a cell.
+     *
+     * @param kind  what happened
+     * @param row   the row of the cell
+     * @param col   the column of the cell
+     * @param cells the cells that changed, indexed by row * width + col
+     */
+    static ModelEvent at(Kind kind, int row, int col, int[] cells) {
+        return new ModelEvent(kind, row, col, cells);
+    }
+
+    /**
+     * An event about a cell that changed nothing on the board.
+     */
+    static ModelEvent at(Kind kind, int row, int col) {
+        return new ModelEvent(kind, row, col, NONE);
+    }
+
+    /**
+     * An event about the whole board, which may all have changed.
+     */
+    static ModelEvent board(Kind kind) {
+        return new ModelEvent(kind, -1, -1, null);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the row of the cell the event is about, or -1 for the whole board
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * @return the column of the cell the event is about, or -1 for the whole board
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * @return the cells that may look different now, indexed by row * width + col, or null if the whole board may
+     * have changed
+     */
+    public int[] getCells() {
+        return cells == null ? null : cells.clone();
+    }
+
+    /**
+     * Does the event change the whole board?
+     */
+    public boolean isWholeBoard() {
+        return cells == null;
+    }
+
+    /**
+     * The message the plain text UI prints for the event.
+     *
+     * @return the message, or null if the event has none
+     */
+    public String getMessage() {
+        switch (kind) {
+            case LASER_ADDED:
+                return "Laser added at: (" + row + ", " + col + ")";
+            case LASER_REMOVED:
+                return "Laser removed at: (" + row + ", " + col + ")";
+            case ADD_FAILED:
+                return "Error adding laser at: (" + row + ", " + col + ")";
+            case REMOVE_FAILED:
+                return "Error removing laser at: (" + row + ", " + col + ")";
+            case VERIFY_FAILED:
+                return "Error verifying at: (" + row + ", " + col + ")";
+            case VERIFIED:
+                return "Safe is fully verified!";
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String message = getMessage();
+        return message == null ? kind.toString() : message;
+    }
+}
@@ -0,0 +1,139 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Hands the events of a model to its listeners in batches. Events are
+ * queued, and the dispatcher is asked once to deliver everything queued
+ * until it gets to run. The default dispatcher runs right away, so every
+ * event is a batch of its own; a UI passes its own event queue, such as
+ * Platform::runLater, and then a burst of changes made in one go reaches
+ * the listeners as a single batch in the next frame. Changes made inside
+ * batch() are always delivered together.
+ * <br>
+ * Batches are coalesced: a RELOADED event drops the events queued before
+ * it, as the whole board is redrawn anyway, and a REFRESH is dropped when
+ * other events are already queued.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+public class ModelEventBus {
+
+    /**
+     * Receives the events of a model
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * Called by the dispatcher with the events since the last call.
+         *
+         * @param events the events in the order they happened, never empty
+         */
+        void modelChanged(List<ModelEvent> events);
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Executor dispatcher = Runnable::run;
+
+    /**
+     * The events not delivered yet, guarded by this
+     */
+    private List<ModelEvent> pending = new ArrayList<>();
+    /**
+     * Whether the dispatcher was asked to deliver the pending events
+     */
+    private boolean scheduled;
+    /**
+     * How many calls of batch() are running
+     */
+    private int batches;
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Sets where the events are delivered.
+     *
+     * @param dispatcher runs the deliveries, for example on the thread of a UI
+     */
+    public void setDispatcher(Executor dispatcher) {
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Makes changes that reach the listeners as one batch.
+     *
+     * @param changes the changes to make
+     */
+    public void batch(Runnable changes) {
+        synchronized (this) {
+            batches++;
+        }
+        try {
+            changes.run();
+        } finally {
+            boolean schedule;
+            synchronized (this) {
+                batches--;
+                schedule = batches == 0 && !scheduled && !pending.isEmpty();
+                scheduled |= schedule;
+            }
+            if (schedule) {
+                dispatcher.execute(this::flush);
+            }
+        }
+    }
+
+    /**
+     * Queues an event, asking the dispatcher to deliver it unless a delivery is on its way already.
+     *
+     * @param event what happened
+     */
+    void post(ModelEvent event) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        boolean schedule;
+        synchronized (this) {
+            if (event.getKind() == ModelEvent.Kind.RELOADED) {
+                pending.clear();
+            } else if (event.getKind() == ModelEvent.Kind.REFRESH && !pending.isEmpty()) {
+                return;
+            }
+            pending.add(event);
+            schedule = batches == 0 && !scheduled;
+            scheduled |= schedule;
+        }
+        if (schedule) {
+            dispatcher.execute(this::flush);
+        }
+    }
+
+    /**
+     * Delivers the queued events to every listener right away.
+     */
+    public void flush() {
+        List<ModelEvent> events;
+        synchronized (this) {
+            scheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            events = Collections.unmodifiableList(pending);
+            pending = new ArrayList<>();
+        }
+        for (Listener listener : listeners) {
+            listener.modelChanged(events);
+        }
+    }
+}
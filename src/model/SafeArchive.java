@@ -0,0 +1,313 @@
+package model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Many safes packed into one binary file, read through a memory mapping.
+ * A safe is found through the index without reading the ones before it,
+ * and its cells are decoded straight from the mapped bytes, so loading a
+ * safe opens no file and tokenizes no text.
+ * <p>
+ * The file starts with a header: the magic number, the version, the number
+ * of safes and where the index starts. Then come the safes, and last the
+ * index, one offset per safe. A safe is its height and width as shorts, a
+ * flag byte, and its cells at 4 bits each, two to a byte with the first in
+ * the low half. When the flag says so a solution follows, one bit per
+ * cell telling whether it holds a laser. Everything is little endian.
+ * <p>
+ * Every record is checked against the file before it is decoded, so a
+ * truncated or damaged archive gives an IOException, not garbage.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+public class SafeArchive {
+
+    private static final int MAGIC = 0x4641534C;
+    private static final short VERSION = 1;
+    private static final int HEADER = 4 + 2 + 4 + 8;
+    private static final byte HAS_SOLUTION = 1;
+
+    /**
+     * The cell characters by their 4 bit code
+     */
+    private static final char[] CELLS = {'.', 'L', '0', '1', '2', '3', '4', 'X'};
+
+    private final MappedByteBuffer buffer;
+    private final int count;
+    private final int index;
+
+    private SafeArchive(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.limit() < HEADER || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a safe archive");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IOException("Unknown safe archive version " + buffer.getShort(4));
+        }
+        count = buffer.getInt(6);
+        long indexStart = buffer.getLong(10);
+        if (count < 0 || indexStart < HEADER || indexStart + 8L * count > buffer.limit()) {
+            throw new IOException("Damaged safe archive");
+        }
+        index = (int) indexStart;
+    }
+
+    /**
+     * Maps an archive into memory. The file is closed again right away, the
+     * mapping stays valid on its own.
+     *
+     * @param file the archive, at most 2 GB
+     * @return the archive
+     * @throws IOException if the file can not be read or is not an archive
+     */
+    public static SafeArchive open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new SafeArchive(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * @return the number of safes in the archive
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Loads a safe. Safe to call from several threads at once.
+     *
+     * @param i the number of the safe, from 0
+     * @return the safe as it was written, with the lasers it had
+     * @throws IndexOutOfBoundsException if the archive has no safe i
+     * @throws IOException               if the record of the safe is damaged
+     */
+    public LasersModel get(int i) throws IOException {
+        Record record = record(i);
+        return new LasersModel(record.height, record.width, cells(record));
+    }
+
+    /**
+     * @param i the number of the safe, from 0
+     * @return true if the archive holds a solution for the safe
+     * @throws IndexOutOfBoundsException if the archive has no safe i
+     * @throws IOException               if the record of the safe is damaged
+     */
+    public boolean hasSolution(int i) throws IOException {
+        return record(i).solved;
+    }
+
+    /**
+     * Loads the solution stored with a safe.
+     *
+     * @param i the number of the safe, from 0
+     * @return the safe with the lasers of its solution, or null if none was
+     * stored
+     * @throws IndexOutOfBoundsException if the archive has no safe i
+     * @throws IOException               if the record of the safe is damaged
+     */
+    public LasersModel solution(int i) throws IOException {
+        Record record = record(i);
+        if (!record.solved) {
+            return null;
+        }
+        char[] grid = cells(record);
+        int lasers = record.at + 5 + (record.cells + 1) / 2;
+        for (int cell = 0; cell < record.cells; cell++) {
+            if ((buffer.get(lasers + cell / 8) & (1 << (cell % 8))) != 0) {
+                grid[cell] = LasersModel.LASER;
+            }
+        }
+        return new LasersModel(record.height, record.width, grid);
+    }
+
+    /**
+     * Where a safe is and how large, checked against the size of the file
+     */
+    private static final class Record {
+        private int at;
+        private int height;
+        private int width;
+        private int cells;
+        private boolean solved;
+    }
+
+    /**
+     * Finds the record of a safe and checks that it lies in the file.
+     *
+     * @param i the number of the safe, from 0
+     * @return the record
+     * @throws IndexOutOfBoundsException if the archive has no safe i
+     * @throws IOException               if the record is damaged
+     */
+    private Record record(int i) throws IOException {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException("No safe " + i + " in an archive of " + count);
+        }
+        long at = buffer.getLong(index + 8 * i);
+        if (at < HEADER || at + 5 > index) {
+            throw new IOException("Damaged safe archive: safe " + i + " is at " + at
+                    + ", outside the safes, which end at " + index);
+        }
+        Record record = new Record();
+        record.at = (int) at;
+        record.height = Short.toUnsignedInt(buffer.getShort(record.at));
+        record.width = Short.toUnsignedInt(buffer.getShort(record.at + 2));
+        record.solved = (buffer.get(record.at + 4) & HAS_SOLUTION) != 0;
+        if (record.height == 0 || record.width == 0) {
+            throw new IOException("Damaged safe archive: safe " + i + " is " + record.height + "x" + record.width);
+        }
+        long cells = (long) record.height * record.width;
+        long end = at + 5 + (cells + 1) / 2 + (record.solved ? (cells + 7) / 8 : 0);
+        if (end > index || cells > Integer.MAX_VALUE) {
+            throw new IOException("Damaged safe archive: safe " + i + " of " + record.height + "x" + record.width
+                    + " at " + at + " ends at " + end + ", past the end of the safes at " + index);
+        }
+        record.cells = (int) cells;
+        return record;
+    }
+
+    /**
+     * Decodes the cells of a safe.
+     *
+     * @throws IOException if a cell has no valid code
+     */
+    private char[] cells(Record record) throws IOException {
+        char[] grid = new char[record.cells];
+        int packed = record.at + 5;
+        for (int cell = 0; cell < record.cells; cell += 2) {
+            int pair = buffer.get(packed + cell / 2) & 0xff;
+            grid[cell] = cell(record, cell, pair & 0xf);
+            if (cell + 1 < record.cells) {
+                grid[cell + 1] = cell(record, cell + 1, pair >> 4);
+            }
+        }
+        return grid;
+    }
+
+    private static char cell(Record record, int cell, int code) throws IOException {
+        if (code >= CELLS.length) {
+            throw new IOException("Damaged safe archive: unknown code " + code + " for cell ("
+                    + cell / record.width + ", " + cell % record.width + ") of the safe at " + record.at);
+        }
+        return CELLS[code];
+    }
+
+    /**
+     * The 4 bit code of a cell character. Beams and anything else that is
+     * neither a laser nor a pillar are empty cells.
+     */
+    private static int code(char cell) {
+        for (int code = 1; code < CELLS.length; code++) {
+            if (CELLS[code] == cell) {
+                return code;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Writes an archive one safe at a time, so a corpus never has to be in
+     * memory all at once. The index and the header are written by close.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileChannel channel;
+        private long[] offsets = new long[64];
+        private int count;
+        private long position = HEADER;
+
+        /**
+         * Creates an empty archive, replacing any file already there.
+         *
+         * @param file the archive
+         * @throws IOException if the file can not be written
+         */
+        public Writer(Path file) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        /**
+         * Adds a safe.
+         *
+         * @param safe     the safe, stored with the lasers it has
+         * @param solution the solved safe, or null to store no solution
+         * @throws IOException              if the file can not be written
+         * @throws IllegalArgumentException if the safe is too large for the shorts its size is stored in
+         */
+        public void add(LasersModel safe, LasersModel solution) throws IOException {
+            int height = safe.getHeight();
+            int width = safe.getWidth();
+            if (height > Short.MAX_VALUE || width > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("A safe of " + height + "x" + width
+                        + " is too large for an archive, at most " + Short.MAX_VALUE + " rows and columns fit");
+            }
+            int cells = height * width;
+            int size = 5 + (cells + 1) / 2 + (solution == null ? 0 : (cells + 7) / 8);
+            ByteBuffer record = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            record.putShort((short) height).putShort((short) width).put(solution == null ? 0 : HAS_SOLUTION);
+            for (int cell = 0; cell < cells; cell += 2) {
+                int low = code(safe.getGrid(cell / width, cell % width));
+                int high = cell + 1 < cells ? code(safe.getGrid((cell + 1) / width, (cell + 1) % width)) : 0;
+                record.put((byte) (low | high << 4));
+            }
+            if (solution != null) {
+                byte[] lasers = new byte[(cells + 7) / 8];
+                for (int cell = 0; cell < cells; cell++) {
+                    if (solution.getGrid(cell / width, cell % width) == LasersModel.LASER) {
+                        lasers[cell / 8] |= 1 << (cell % 8);
+                    }
+                }
+                record.put(lasers);
+            }
+            record.flip();
+            writeFully(record, position);
+
+            if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, 2 * count);
+            }
+            offsets[count++] = position;
+            position += size;
+        }
+
+        /**
+         * Writes the index and the header and closes the file.
+         *
+         * @throws IOException if the file can not be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteBuffer index = ByteBuffer.allocate(8 * count).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; i++) {
+                    index.putLong(offsets[i]);
+                }
+                index.flip();
+                writeFully(index, position);
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER).order(ByteOrder.LITTLE_ENDIAN);
+                header.putInt(MAGIC).putShort(VERSION).putInt(count).putLong(position);
+                header.flip();
+                writeFully(header, 0);
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void writeFully(ByteBuffer bytes, long at) throws IOException {
+            while (bytes.hasRemaining()) {
+                at += channel.write(bytes, at);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Thrown when a safe file is not in the safe format, telling where in the
+ * file the problem is.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+public class SafeFormatException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int line;
+    private final int column;
+
+    /**
+     * Creates the exception.
+     *
+     * @param file    the file being read
+     * @param line    the line of the problem, from 1
+     * @param column  the column of the problem, from 1
+     * @param message what is wrong
+     */
+    public SafeFormatException(String file, int line, int column, String message) {
+        super(file + ":" + line + ":" + column + ": " + message);
+        this.line = line;
+        this.column = column;
+    }
+
+    /**
+     * @return the line of the problem, from 1
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * @return the column of the problem, from 1
+     */
+    public int getColumn() {
+        return column;
+    }
+}
@@ -0,0 +1,226 @@
+package model;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads a safe file byte by byte through a channel, checking the format as
+ * it goes. Nothing is tokenized: the two numbers are accumulated digit by
+ * digit and every cell is one byte, so loading a huge safe creates no
+ * garbage beyond the cell array. Every row has to be on a line of its
+ * own with exactly as many cells as the header says. A file starting with
+ * the gzip magic number is inflated on the way. Everything after the line
+ * of the last row, such as a solution printed below the safe, is never
+ * read.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+final class SafeParser {
+
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * The largest number of cells a safe can have, so a cell fits the trail
+     * entries of LasersModel
+     */
+    private static final int MAX_CELLS = 1 << 29;
+
+    private final String file;
+    private ReadableByteChannel in;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER);
+    private int line = 1;
+    private int column;
+    /**
+     * Whether the last byte read ended a line
+     */
+    private boolean newline;
+
+    int height;
+    int width;
+    /**
+     * The cell characters, indexed by row * width + col
+     */
+    char[] cells;
+
+    private SafeParser(String file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads a safe file.
+     *
+     * @param file the file, plain or gzipped
+     * @return the parser, holding the size and the cells of the safe
+     * @throws FileNotFoundException if the file does not exist
+     * @throws SafeFormatException   if the file is not a safe
+     * @throws UncheckedIOException  if the file can not be read
+     */
+    static SafeParser parse(String file) throws FileNotFoundException {
+        SafeParser parser = new SafeParser(file);
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            parser.in = channel;
+            if (parser.isGzip()) {
+                channel.position(0);
+                parser.in = Channels.newChannel(new GZIPInputStream(Channels.newInputStream(channel), BUFFER));
+                parser.buffer.limit(0);
+            }
+            parser.read();
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return parser;
+    }
+
+    /**
+     * Does the file start with the gzip magic number? Leaves what it read
+     * in the buffer.
+     */
+    private boolean isGzip() throws IOException {
+        buffer.clear();
+        while (buffer.position() < 2 && in.read(buffer) > 0) {
+            // a channel may hand out less than asked for
+        }
+        buffer.flip();
+        return buffer.limit() >= 2 && (buffer.get(0) & 0xff) == 0x1f && (buffer.get(1) & 0xff) == 0x8b;
+    }
+
+    private void read() throws IOException {
+        height = number("number of rows");
+        width = number("number of columns");
+        if ((long) height * width >= MAX_CELLS) {
+            throw error("A safe of " + height + " by " + width + " is too large");
+        }
+        cells = new char[height * width];
+        int lastLine = line;
+        for (int r = 0; r < height; r++) {
+            int b = skipSpace();
+            if (b < 0) {
+                throw error("Expected " + height + " rows, found " + r);
+            }
+            if (line == lastLine) {
+                throw error(r == 0 ? "Expected the first row on the line after the size"
+                        : "Expected " + width + " cells in row " + (r - 1) + ", found more");
+            }
+            for (int c = 0; c < width; c++) {
+                if (c > 0) {
+                    b = skipBlank();
+                    if (b < 0 || b == '\n') {
+                        throw error("Expected " + width + " cells in row " + r + ", found " + c);
+                    }
+                }
+                if (b != '.' && b != 'L' && (b < '0' || b > '4') && b != 'X') {
+                    throw error("Unknown cell '" + (char) b + "'");
+                }
+                cells[r * width + c] = (char) b;
+                int after = next();
+                if (after >= 0 && !isSpace(after)) {
+                    throw error("Expected a space after the cell, found '" + (char) after + "'");
+                }
+            }
+            lastLine = line;
+        }
+        int b = skipBlank();
+        if (b >= 0 && b != '\n') {
+            throw error("Expected " + width + " cells in row " + (height - 1) + ", found more");
+        }
+    }
+
+    /**
+     * Reads a positive number standing on its own.
+     *
+     * @param what what the number is, for the error message
+     */
+    private int number(String what) throws IOException {
+        int b = skipSpace();
+        if (b < '0' || b > '9') {
+            throw error(b < 0 ? "Expected the " + what + ", found the end of the file" : "Expected the " + what);
+        }
+        long value = 0;
+        while (b >= '0' && b <= '9') {
+            value = 10 * value + (b - '0');
+            if (value > MAX_CELLS) {
+                throw error("The " + what + " is too large");
+            }
+            b = next();
+        }
+        if (b >= 0 && !isSpace(b)) {
+            throw error("Expected the " + what);
+        }
+        if (value == 0) {
+            throw error("The " + what + " must be positive");
+        }
+        return (int) value;
+    }
+
+    /**
+     * The next byte that is not white space, or -1 at the end of the file.
+     */
+    private int skipSpace() throws IOException {
+        int b = next();
+        while (b >= 0 && isSpace(b)) {
+            b = next();
+        }
+        return b;
+    }
+
+    /**
+     * The next byte on the current line that is not white space, '\n' if
+     * the line ends first, or -1 at the end of the file.
+     */
+    private int skipBlank() throws IOException {
+        if (newline) {
+            return '\n';
+        }
+        int b = next();
+        while (b >= 0 && b != '\n' && isSpace(b)) {
+            b = next();
+        }
+        return b;
+    }
+
+    /**
+     * The next byte of the file, or -1 at the end of it. Keeps track of the
+     * line and column of the byte returned.
+     */
+    private int next() throws IOException {
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int read = in.read(buffer);
+            while (read == 0) {
+                read = in.read(buffer);
+            }
+            buffer.flip();
+            if (read < 0) {
+                return -1;
+            }
+        }
+        int b = buffer.get() & 0xff;
+        if (newline) {
+            line++;
+            column = 0;
+        }
+        column++;
+        newline = b == '\n';
+        return b;
+    }
+
+    private static boolean isSpace(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+
+    private SafeFormatException error(String message) {
+        return new SafeFormatException(file, line, Math.max(column, 1), message);
+    }
+}
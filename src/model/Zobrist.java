@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * The random keys Zobrist hashing gives to every (cell, state) pair. The keys are derived from their index by a
+ * fixed mixing function instead of being drawn into a table, so every board of every size agrees on them without
+ * sharing anything.
+ *
+ * @author Elijah Bosley
+ * @author Stefan Marchhart
+ */
+final class Zobrist {
+
+    private Zobrist() {
+    }
+
+    /**
+     * The key of an index, the SplitMix64 output for it
+     *
+     * @param index the index of the (cell, state) pair
+     * @return a 64 bit key that looks random
+     */
+    static long key(long index) {
+        long z = (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
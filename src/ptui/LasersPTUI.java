@@ -1,10 +1,17 @@
 package ptui;
 
+import model.BoardRenderer;
 import model.LasersModel;
+import model.ModelEvent;
+import model.ModelEventBus;
 
+import java.io.BufferedWriter;
 import java.io.FileNotFoundException;
-import java.util.Observable;
-import java.util.Observer;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
 
 /**
  * This class represents the view portion of the plain text UI.  It
@@ -14,7 +21,7 @@ import java.util.Observer;
  * @author Sean Strout @ RIT CS
  * @author Elijah Bosley, Stefan Marchart
  */
-public class LasersPTUI implements Observer {
+public class LasersPTUI implements ModelEventBus.Listener {
 
     /**
      * A horizontal divider
@@ -30,6 +37,17 @@ public class LasersPTUI implements Observer {
      */
     private LasersModel model;
 
+    /**
+     * Draws the safe, keeping the last frame in ANSI mode
+     */
+    private final BoardRenderer renderer;
+    private final boolean ansi;
+
+    /**
+     * Where the safe is drawn, flushed after every frame
+     */
+    private final Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+
     /**
      * Construct the PTUI.  Create the model and initialize the view.
      *
@@ -37,13 +55,30 @@ public class LasersPTUI implements Observer {
      * @throws FileNotFoundException if file not found
      */
     public LasersPTUI(String filename) throws FileNotFoundException {
+        this(filename, false);
+    }
+
+    /**
+     * Construct the PTUI.  Create the model and initialize the view.
+     *
+     * @param filename the safe file name
+     * @param ansi     whether to keep the safe at the top of the terminal, redrawing only the rows that changed
+     * @throws FileNotFoundException if file not found
+     */
+    public LasersPTUI(String filename, boolean ansi) throws FileNotFoundException {
+        this.ansi = ansi;
+        this.renderer = new BoardRenderer(ansi);
+        if (ansi) {
+            // quitting exits right away, give the terminal back its scrolling
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(BoardRenderer.RESET)));
+        }
         try {
             this.model = new LasersModel(filename);
         } catch (FileNotFoundException fnfe) {
             System.out.println(fnfe.getMessage());
             System.exit(-1);
         }
-        this.model.addObserver(this);
+        this.model.getEvents().addListener(this);
     }
 
     public LasersModel getModel() {
@@ -51,50 +86,34 @@ public class LasersPTUI implements Observer {
     }
 
     @Override
-    public void update(Observable o, Object arg) {
-        this.model.updateBeams();
-        if (arg != null) {
-            System.out.println(arg);
+    public void modelChanged(List<ModelEvent> events) {
+        if (!ansi) {
+            printMessages(events);
         }
-        System.out.println(createOutput());
-        
-    }
-
-    private String createOutput() {
-        String result = "  ";
-        // Creates labels for the top columns
-        for (int i = 0; i < this.model.getWidth() + (this.model.getWidth() - 1); i++) {
-            if (i % 2 == 0) result += i / 2 + " ";
+        try {
+            renderer.render(model, out);
+            if (!ansi) {
+                out.write(System.lineSeparator());
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        result += "\n  ";
-        // Creates dividers for the top part of the Laser puzzle
-        for (int i = 0; i < this.model.getWidth() + (this.model.getWidth() - 1); i++) {
-            result += HORI_DIVIDE;
+        // the first frame clears the terminal, so the messages go below it
+        if (ansi) {
+            printMessages(events);
         }
-        result += "\n";
-        // nested for loops to generate the visible part of the grid
-        for (int row = 0; row < this.model.getHeight(); row++) {
-            for (int col = 0; col < this.model.getWidth(); col++) {
-                // this if creates the row numbers and left hand divider
-                if (col == 0) {
-                    result += row + "" + VERT_DIVIDE;
-                }
-
-                result += (this.model.getGrid(row, col));
-
-                // this if adds spacing after every item gets placed in the puzzle
-                if (col >= 0 && col < this.model.getWidth() - 1) {
-                    result += " ";
-                }
+    }
 
-            }
-            // new line after running through the whole X line
-            if (row != this.model.getHeight() - 1) {
-                result += "\n";
+    private static void printMessages(List<ModelEvent> events) {
+        for (ModelEvent event : events) {
+            String message = event.getMessage();
+            if (message != null) {
+                System.out.println(message);
             }
         }
-        return result;
     }
+
     public static void displayHelp() {
             System.out.println("a|add r c: Add laser to (r,c)");
             System.out.println("d|display: Display safe");